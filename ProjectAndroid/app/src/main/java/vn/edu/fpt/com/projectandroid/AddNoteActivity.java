@@ -2,16 +2,22 @@ package vn.edu.fpt.com.projectandroid;
 
 import android.app.*;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.*;
+import androidx.activity.result.ActivityResult;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.PickVisualMediaRequest;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.room.Room;
+import com.bumptech.glide.Glide;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputLayout;
-import java.text.SimpleDateFormat;
+import java.io.File;
 import java.util.Calendar;
 import java.util.Locale;
 import java.util.Arrays;
@@ -21,11 +27,19 @@ import android.os.Build;
 public class AddNoteActivity extends AppCompatActivity {
     private TextInputEditText etTitle, etContent;
     private AutoCompleteTextView spinnerTag, spinnerColor, spinnerNotifyType;
-    private MaterialButton btnSave, btnPickDate;
+    private MaterialButton btnSave, btnPickDate, btnAttachImage, btnTakePhoto, btnRemoveImage;
     private TextView tvReminder;
+    private ImageView ivImage;
     private MaterialToolbar toolbar;
-    private NoteDatabase noteDatabase;
-    private String reminderTime = null;
+    private NoteRepository noteRepository;
+    private long reminderTime = 0; // epoch millis, 0 = no reminder
+    private String imagePath = ""; // imported by NoteImages, "" = no image
+    private boolean saved = false;
+
+    private final ActivityResultLauncher<PickVisualMediaRequest> imagePicker =
+            registerForActivityResult(new ActivityResultContracts.PickVisualMedia(), this::onImagePicked);
+    private final ActivityResultLauncher<Intent> cameraLauncher =
+            registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), this::onPhotoTaken);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,6 +56,10 @@ public class AddNoteActivity extends AppCompatActivity {
             btnSave = findViewById(R.id.btnSave);
             btnPickDate = findViewById(R.id.btnPickDate);
             tvReminder = findViewById(R.id.tvReminder);
+            ivImage = findViewById(R.id.ivImage);
+            btnAttachImage = findViewById(R.id.btnAttachImage);
+            btnTakePhoto = findViewById(R.id.btnTakePhoto);
+            btnRemoveImage = findViewById(R.id.btnRemoveImage);
             toolbar = findViewById(R.id.toolbar);
 
             // Setup toolbar
@@ -54,12 +72,8 @@ public class AddNoteActivity extends AppCompatActivity {
                 }
             }
 
-            // Initialize database
-            noteDatabase = Room.databaseBuilder(getApplicationContext(),
-                    NoteDatabase.class, "note_db")
-                    .allowMainThreadQueries()
-                    .fallbackToDestructiveMigration() // This will recreate the database if migration fails
-                    .build();
+            // Shared database, already opened by NoteApplication
+            noteRepository = NoteApplication.from(this).getNoteRepository();
 
             // Setup date picker
             if (btnPickDate != null) {
@@ -73,9 +87,9 @@ public class AddNoteActivity extends AppCompatActivity {
                             new TimePickerDialog(this, (view1, hourOfDay, minute) -> {
                                 calendar.set(Calendar.HOUR_OF_DAY, hourOfDay);
                                 calendar.set(Calendar.MINUTE, minute);
-                                reminderTime = String.valueOf(calendar.getTimeInMillis());
+                                reminderTime = calendar.getTimeInMillis();
                                 if (tvReminder != null) {
-                                    tvReminder.setText("Reminder: " + new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(calendar.getTime()));
+                                    tvReminder.setText("Reminder: " + DateFormatter.format(reminderTime));
                                 }
                             }, calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE), true).show();
                         }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
@@ -86,6 +100,27 @@ public class AddNoteActivity extends AppCompatActivity {
                 });
             }
 
+            // Setup image attachment; an image imported before a rotation is kept
+            if (savedInstanceState != null) {
+                imagePath = savedInstanceState.getString("image_path", "");
+            }
+            if (btnAttachImage != null) {
+                btnAttachImage.setOnClickListener(v -> imagePicker.launch(new PickVisualMediaRequest.Builder()
+                        .setMediaType(ActivityResultContracts.PickVisualMedia.ImageOnly.INSTANCE)
+                        .build()));
+            }
+            if (btnTakePhoto != null) {
+                btnTakePhoto.setOnClickListener(v -> cameraLauncher.launch(new Intent(this, CaptureActivity.class)));
+            }
+            if (btnRemoveImage != null) {
+                btnRemoveImage.setOnClickListener(v -> {
+                    discardImage(imagePath);
+                    imagePath = "";
+                    showImage();
+                });
+            }
+            showImage();
+
             // Setup AutoCompleteTextView adapters
             setupAutoCompleteAdapters();
 
@@ -100,6 +135,93 @@ public class AddNoteActivity extends AppCompatActivity {
         }
     }
 
+    private void onImagePicked(Uri uri) {
+        if (uri == null || noteRepository == null) {
+            return;
+        }
+        btnAttachImage.setEnabled(false);
+        // Copying, downscaling and writing the thumbnail rendition happen off the main thread
+        noteRepository.execute(() -> NoteImages.importImage(getApplicationContext(), uri),
+                new NoteRepository.Callback<String>() {
+                    @Override
+                    public void onResult(String path) {
+                        if (isDestroyed()) {
+                            discardImage(path);
+                            return;
+                        }
+                        btnAttachImage.setEnabled(true);
+                        attachImage(path);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (btnAttachImage != null) {
+                            btnAttachImage.setEnabled(true);
+                        }
+                        Toast.makeText(AddNoteActivity.this, "Error attaching image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        e.printStackTrace();
+                    }
+                });
+    }
+
+    // CaptureActivity has already written the photo and its thumbnail
+    private void onPhotoTaken(ActivityResult result) {
+        Intent data = result.getData();
+        String path = data != null ? data.getStringExtra(CaptureActivity.EXTRA_IMAGE_PATH) : null;
+        if (result.getResultCode() == RESULT_OK && path != null) {
+            attachImage(path);
+        }
+    }
+
+    // Replaces the current, still unsaved, attachment
+    private void attachImage(String path) {
+        discardImage(imagePath);
+        imagePath = path;
+        showImage();
+    }
+
+    private void showImage() {
+        if (ivImage == null) {
+            return;
+        }
+        boolean hasImage = !imagePath.isEmpty();
+        if (hasImage) {
+            // Glide decodes the stored copy at the preview's size
+            Glide.with(this).load(new File(imagePath)).centerCrop().into(ivImage);
+        } else {
+            Glide.with(this).clear(ivImage);
+        }
+        ivImage.setVisibility(hasImage ? View.VISIBLE : View.GONE);
+        if (btnRemoveImage != null) {
+            btnRemoveImage.setVisibility(hasImage ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    // Deletes an imported image that no saved note refers to
+    private void discardImage(String path) {
+        if (path != null && !path.isEmpty() && noteRepository != null) {
+            noteRepository.execute(() -> {
+                NoteImages.delete(path);
+                return null;
+            }, null);
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString("image_path", imagePath);
+    }
+
+    @Override
+    protected void onDestroy() {
+        // Leaving without saving drops the imported copy; a rotation keeps it
+        if (isFinishing() && !saved) {
+            discardImage(imagePath);
+        }
+        super.onDestroy();
+    }
+
     private void setupAutoCompleteAdapters() {
         try {
             // Setup Tag adapter
@@ -160,23 +282,39 @@ public class AddNoteActivity extends AppCompatActivity {
             String notifyType = (spinnerNotifyType != null && spinnerNotifyType.getText() != null && !spinnerNotifyType.getText().toString().trim().isEmpty())
                 ? spinnerNotifyType.getText().toString().trim()
                 : "Default";
-            String date = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(System.currentTimeMillis());
 
             Note note = new Note(title, content, tag, color);
-            note.date = date;
-            note.imagePath = ""; // Không còn hỗ trợ ảnh
-            note.reminderTime = reminderTime != null ? reminderTime : "";
-            note.reminderDate = reminderTime != null ? new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(Long.parseLong(reminderTime)) : "";
-
-            if (noteDatabase != null && noteDatabase.noteDao() != null) {
-                noteDatabase.noteDao().insert(note);
-                
-                if (reminderTime != null) {
-                    setReminder(title, Long.parseLong(reminderTime), notifyType);
-                }
-                
-                Toast.makeText(this, "Note saved successfully!", Toast.LENGTH_SHORT).show();
-                finish();
+            note.date = System.currentTimeMillis();
+            note.imagePath = imagePath;
+            note.reminderTime = reminderTime;
+            note.notifyType = notifyType;
+
+            if (noteRepository != null) {
+                final long savedReminderTime = reminderTime;
+                btnSave.setEnabled(false);
+                noteRepository.insert(note, new NoteRepository.Callback<Long>() {
+                    @Override
+                    public void onResult(Long id) {
+                        saved = true;
+                        if (savedReminderTime > 0) {
+                            // The scheduler keeps a single alarm for the earliest pending reminder
+                            ReminderScheduler.reminderChanged(AddNoteActivity.this, id.intValue());
+                            Toast.makeText(AddNoteActivity.this, "Reminder set for: " + DateFormatter.format(savedReminderTime), Toast.LENGTH_SHORT).show();
+                        }
+
+                        Toast.makeText(AddNoteActivity.this, "Note saved successfully!", Toast.LENGTH_SHORT).show();
+                        // Lets MainActivity add just this row to its list
+                        setResult(RESULT_OK, new Intent().putExtra("note_id", id.intValue()));
+                        finish();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        btnSave.setEnabled(true);
+                        Toast.makeText(AddNoteActivity.this, "Error saving note: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                        e.printStackTrace();
+                    }
+                });
             } else {
                 Toast.makeText(this, "Error: Database not initialized", Toast.LENGTH_SHORT).show();
             }
@@ -186,45 +324,6 @@ public class AddNoteActivity extends AppCompatActivity {
         }
     }
 
-    private void setReminder(String title, long timeInMillis, String notifyType) {
-        try {
-            Log.d("AddNoteActivity", "Setting reminder for: " + title + " at: " + timeInMillis);
-            
-            Intent intent = new Intent(this, ReminderReceiver.class);
-            intent.putExtra("title", title);
-            intent.putExtra("notifyType", notifyType);
-            
-            int requestCode = (int) (timeInMillis % Integer.MAX_VALUE);
-            
-            // Fix PendingIntent flags for different Android versions
-            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                flags |= PendingIntent.FLAG_IMMUTABLE;
-            }
-            
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(this, requestCode, intent, flags);
-            
-            AlarmManager alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
-            if (alarmManager != null) {
-                // Use setExactAndAllowWhileIdle for better reliability
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, timeInMillis, pendingIntent);
-                } else {
-                    alarmManager.setExact(AlarmManager.RTC_WAKEUP, timeInMillis, pendingIntent);
-                }
-                
-                Log.d("AddNoteActivity", "Alarm set successfully for: " + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(timeInMillis));
-                Toast.makeText(this, "Reminder set for: " + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(timeInMillis), Toast.LENGTH_SHORT).show();
-            } else {
-                Log.e("AddNoteActivity", "AlarmManager is null");
-                Toast.makeText(this, "Error: Could not set reminder", Toast.LENGTH_SHORT).show();
-            }
-        } catch (Exception e) {
-            Log.e("AddNoteActivity", "Error setting reminder: " + e.getMessage(), e);
-            Toast.makeText(this, "Error setting reminder: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
-    }
-
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
@@ -239,7 +338,7 @@ public class AddNoteActivity extends AppCompatActivity {
         String title = etTitle != null ? etTitle.getText().toString().trim() : "";
         String content = etContent != null ? etContent.getText().toString().trim() : "";
 
-        if (!title.isEmpty() || !content.isEmpty()) {
+        if (!title.isEmpty() || !content.isEmpty() || !imagePath.isEmpty()) {
             new android.app.AlertDialog.Builder(this)
                 .setTitle("Discard Changes?")
                 .setMessage("You have unsaved changes. Are you sure you want to discard them?")
@@ -0,0 +1,191 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.Manifest;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.util.Log;
+import android.util.Size;
+import android.widget.ImageButton;
+import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageCapture;
+import androidx.camera.core.ImageCaptureException;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Takes a photo for a note. CameraX is first touched here, so app start
+ * never pays for camera initialization. ImageCapture encodes the JPEG at a
+ * bounded resolution and quality and writes it straight into attachment
+ * storage on its own thread; the stored path is returned under
+ * EXTRA_IMAGE_PATH, and the note keeps only that path.
+ */
+public class CaptureActivity extends AppCompatActivity {
+    private static final String TAG = "CaptureActivity";
+    static final String EXTRA_IMAGE_PATH = "image_path";
+    // The camera picks the closest size at or below this; NoteImages keeps the same long edge
+    private static final Size TARGET_SIZE = new Size(2048, 1536);
+    private static final int JPEG_QUALITY = 85;
+
+    private PreviewView previewView;
+    private FloatingActionButton btnCapture;
+    private ImageCapture imageCapture;
+    // File work runs on the repository executor, which outlives this screen
+    private NoteRepository noteRepository;
+
+    private final ActivityResultLauncher<String> permissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> {
+                if (granted) {
+                    startCamera();
+                } else {
+                    Toast.makeText(this, "Camera permission is needed to take photos", Toast.LENGTH_SHORT).show();
+                    finish();
+                }
+            });
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_capture);
+
+        previewView = findViewById(R.id.previewView);
+        btnCapture = findViewById(R.id.btnCapture);
+        ImageButton btnClose = findViewById(R.id.btnClose);
+        noteRepository = NoteApplication.from(this).getNoteRepository();
+
+        btnCapture.setOnClickListener(v -> takePhoto());
+        btnClose.setOnClickListener(v -> finish());
+
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            startCamera();
+        } else {
+            permissionLauncher.launch(Manifest.permission.CAMERA);
+        }
+    }
+
+    private void startCamera() {
+        ListenableFuture<ProcessCameraProvider> providerFuture = ProcessCameraProvider.getInstance(this);
+        providerFuture.addListener(() -> {
+            try {
+                ProcessCameraProvider provider = providerFuture.get();
+
+                Preview preview = new Preview.Builder().build();
+                preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+                imageCapture = new ImageCapture.Builder()
+                        .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+                        .setResolutionSelector(new ResolutionSelector.Builder()
+                                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                                .setResolutionStrategy(new ResolutionStrategy(TARGET_SIZE,
+                                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                                .build())
+                        .setJpegQuality(JPEG_QUALITY)
+                        .build();
+
+                CameraSelector selector = provider.hasCamera(CameraSelector.DEFAULT_BACK_CAMERA)
+                        ? CameraSelector.DEFAULT_BACK_CAMERA
+                        : CameraSelector.DEFAULT_FRONT_CAMERA;
+                provider.unbindAll();
+                // Unbound automatically when the activity is destroyed
+                provider.bindToLifecycle(this, selector, preview, imageCapture);
+                btnCapture.setEnabled(true);
+            } catch (Exception e) {
+                Toast.makeText(this, "Error starting camera: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                e.printStackTrace();
+                finish();
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    private void takePhoto() {
+        if (imageCapture == null) {
+            return;
+        }
+        btnCapture.setEnabled(false);
+        // Creating the attachment directory is disk work too
+        noteRepository.execute(() -> NoteImages.newImageFile(getApplicationContext()),
+                new NoteRepository.Callback<File>() {
+                    @Override
+                    public void onResult(File file) {
+                        capture(file);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        onCaptureFailed(e);
+                    }
+                });
+    }
+
+    private void capture(File file) {
+        if (isDestroyed()) {
+            return;
+        }
+        ImageCapture.OutputFileOptions options = new ImageCapture.OutputFileOptions.Builder(file).build();
+        // Callbacks on the main thread, which never rejects them, so a capture that ends
+        // after the screen closed still gets its file cleaned up
+        imageCapture.takePicture(options, ContextCompat.getMainExecutor(this), new ImageCapture.OnImageSavedCallback() {
+            @Override
+            public void onImageSaved(@NonNull ImageCapture.OutputFileResults results) {
+                String imagePath = file.getAbsolutePath();
+                if (isDestroyed()) {
+                    discardImage(imagePath);
+                    return;
+                }
+                noteRepository.execute(() -> {
+                    try {
+                        NoteImages.writeThumbnail(file);
+                    } catch (IOException e) {
+                        // The list falls back to the photo itself
+                        Log.e(TAG, "Could not write thumbnail: " + e.getMessage(), e);
+                    }
+                    return imagePath;
+                }, path -> {
+                    if (isDestroyed()) {
+                        discardImage(path);
+                        return;
+                    }
+                    setResult(RESULT_OK, new Intent().putExtra(EXTRA_IMAGE_PATH, path));
+                    finish();
+                });
+            }
+
+            @Override
+            public void onError(@NonNull ImageCaptureException e) {
+                discardImage(file.getAbsolutePath());
+                onCaptureFailed(e);
+            }
+        });
+    }
+
+    private void onCaptureFailed(Exception e) {
+        if (isDestroyed()) {
+            return;
+        }
+        btnCapture.setEnabled(true);
+        Toast.makeText(this, "Error taking photo: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        e.printStackTrace();
+    }
+
+    // A photo finished after the screen was closed belongs to no note
+    private void discardImage(String imagePath) {
+        noteRepository.execute(() -> {
+            NoteImages.delete(imagePath);
+            return null;
+        }, null);
+    }
+}
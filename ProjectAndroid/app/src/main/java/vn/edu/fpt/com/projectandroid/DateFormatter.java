@@ -0,0 +1,30 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Formats epoch-millis columns for display. Dates are stored as numbers
+ * and only turned into text here, at the point they are shown.
+ */
+public final class DateFormatter {
+    private static final String PATTERN = "yyyy-MM-dd HH:mm";
+
+    // SimpleDateFormat is not thread-safe and costly to build, so keep one per thread
+    private static final ThreadLocal<SimpleDateFormat> FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat(PATTERN, Locale.getDefault()));
+
+    private DateFormatter() {
+    }
+
+    /**
+     * Returns "yyyy-MM-dd HH:mm" in the device time zone, or "" for 0 (unset).
+     */
+    public static String format(long millis) {
+        if (millis <= 0) {
+            return "";
+        }
+        return FORMAT.get().format(new Date(millis));
+    }
+}
@@ -2,15 +2,21 @@ package vn.edu.fpt.com.projectandroid;
 
 import android.app.*;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.*;
+import androidx.activity.result.ActivityResult;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.PickVisualMediaRequest;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.room.Room;
+import com.bumptech.glide.Glide;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.button.MaterialButton;
-import java.text.SimpleDateFormat;
+import java.io.File;
 import java.util.Calendar;
 import java.util.Locale;
 import java.util.Arrays;
@@ -21,13 +27,24 @@ import android.view.Menu;
 public class EditNoteActivity extends AppCompatActivity {
     private TextInputEditText etTitle, etContent;
     private AutoCompleteTextView spinnerTag, spinnerColor, spinnerNotifyType;
-    private MaterialButton btnSave, btnPickDate, btnDelete;
+    private MaterialButton btnSave, btnPickDate, btnDelete, btnAttachImage, btnTakePhoto, btnRemoveImage;
     private TextView tvReminder;
+    private ImageView ivImage;
     private MaterialToolbar toolbar;
-    private NoteDatabase noteDatabase;
-    private String reminderTime = null;
+    private NoteRepository noteRepository;
+    private long reminderTime = 0; // epoch millis, 0 = no reminder
     private Note currentNote;
     private int noteId;
+    // The saved note's image stays on disk until an update replacing it succeeds
+    private String originalImagePath = "";
+    private String imagePath = ""; // "" = no image
+    private String restoredImagePath = null; // selection kept across a rotation
+    private boolean saved = false;
+
+    private final ActivityResultLauncher<PickVisualMediaRequest> imagePicker =
+            registerForActivityResult(new ActivityResultContracts.PickVisualMedia(), this::onImagePicked);
+    private final ActivityResultLauncher<Intent> cameraLauncher =
+            registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), this::onPhotoTaken);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -53,6 +70,10 @@ public class EditNoteActivity extends AppCompatActivity {
             btnPickDate = findViewById(R.id.btnPickDate);
             btnDelete = findViewById(R.id.btnDelete);
             tvReminder = findViewById(R.id.tvReminder);
+            ivImage = findViewById(R.id.ivImage);
+            btnAttachImage = findViewById(R.id.btnAttachImage);
+            btnTakePhoto = findViewById(R.id.btnTakePhoto);
+            btnRemoveImage = findViewById(R.id.btnRemoveImage);
             toolbar = findViewById(R.id.toolbar);
 
             // Setup toolbar
@@ -65,12 +86,12 @@ public class EditNoteActivity extends AppCompatActivity {
                 }
             }
 
-            // Initialize database
-            noteDatabase = Room.databaseBuilder(getApplicationContext(),
-                    NoteDatabase.class, "note_db")
-                    .allowMainThreadQueries()
-                    .fallbackToDestructiveMigration()
-                    .build();
+            // Shared database, already opened by NoteApplication
+            noteRepository = NoteApplication.from(this).getNoteRepository();
+
+            if (savedInstanceState != null) {
+                restoredImagePath = savedInstanceState.getString("image_path");
+            }
 
             // Load note data
             loadNoteData();
@@ -87,9 +108,9 @@ public class EditNoteActivity extends AppCompatActivity {
                             new TimePickerDialog(this, (view1, hourOfDay, minute) -> {
                                 calendar.set(Calendar.HOUR_OF_DAY, hourOfDay);
                                 calendar.set(Calendar.MINUTE, minute);
-                                reminderTime = String.valueOf(calendar.getTimeInMillis());
+                                reminderTime = calendar.getTimeInMillis();
                                 if (tvReminder != null) {
-                                    tvReminder.setText("Reminder: " + new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(calendar.getTime()));
+                                    tvReminder.setText("Reminder: " + DateFormatter.format(reminderTime));
                                 }
                             }, calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE), true).show();
                         }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
@@ -100,6 +121,22 @@ public class EditNoteActivity extends AppCompatActivity {
                 });
             }
 
+            // Setup image attachment
+            if (btnAttachImage != null) {
+                btnAttachImage.setOnClickListener(v -> imagePicker.launch(new PickVisualMediaRequest.Builder()
+                        .setMediaType(ActivityResultContracts.PickVisualMedia.ImageOnly.INSTANCE)
+                        .build()));
+            }
+            if (btnTakePhoto != null) {
+                btnTakePhoto.setOnClickListener(v -> cameraLauncher.launch(new Intent(this, CaptureActivity.class)));
+            }
+            if (btnRemoveImage != null) {
+                btnRemoveImage.setOnClickListener(v -> {
+                    replaceImage("");
+                    showImage();
+                });
+            }
+
             // Setup AutoCompleteTextView adapters
             setupAutoCompleteAdapters();
 
@@ -121,13 +158,28 @@ public class EditNoteActivity extends AppCompatActivity {
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
-        getMenuInflater().inflate(R.menu.add_note_menu, menu);
+        getMenuInflater().inflate(R.menu.edit_note_menu, menu);
         return true;
     }
 
     private void loadNoteData() {
+        noteRepository.getNoteById(noteId, new NoteRepository.Callback<Note>() {
+            @Override
+            public void onResult(Note note) {
+                bindNote(note);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(EditNoteActivity.this, "Error loading note: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void bindNote(Note note) {
         try {
-            currentNote = noteDatabase.noteDao().getNoteById(noteId);
+            currentNote = note;
             if (currentNote == null) {
                 Toast.makeText(this, "Note not found", Toast.LENGTH_SHORT).show();
                 finish();
@@ -148,14 +200,19 @@ public class EditNoteActivity extends AppCompatActivity {
                 spinnerColor.setText(currentNote.color, false);
             }
             if (spinnerNotifyType != null) {
-                spinnerNotifyType.setText("Default", false); // Default for existing notes
+                spinnerNotifyType.setText(currentNote.notifyType != null ? currentNote.notifyType : "Default", false);
             }
 
+            originalImagePath = currentNote.imagePath != null ? currentNote.imagePath : "";
+            imagePath = restoredImagePath != null ? restoredImagePath : originalImagePath;
+            restoredImagePath = null;
+            showImage();
+
             // Set reminder if exists
-            if (currentNote.reminderTime != null && !currentNote.reminderTime.isEmpty()) {
+            if (currentNote.reminderTime > 0) {
                 reminderTime = currentNote.reminderTime;
-                if (tvReminder != null && currentNote.reminderDate != null) {
-                    tvReminder.setText("Reminder: " + currentNote.reminderDate);
+                if (tvReminder != null) {
+                    tvReminder.setText("Reminder: " + DateFormatter.format(currentNote.reminderTime));
                 }
             }
 
@@ -165,6 +222,101 @@ public class EditNoteActivity extends AppCompatActivity {
         }
     }
 
+    private void onImagePicked(Uri uri) {
+        if (uri == null || noteRepository == null) {
+            return;
+        }
+        btnAttachImage.setEnabled(false);
+        // Copying, downscaling and writing the thumbnail rendition happen off the main thread
+        noteRepository.execute(() -> NoteImages.importImage(getApplicationContext(), uri),
+                new NoteRepository.Callback<String>() {
+                    @Override
+                    public void onResult(String path) {
+                        if (isDestroyed()) {
+                            discardImage(path);
+                            return;
+                        }
+                        btnAttachImage.setEnabled(true);
+                        replaceImage(path);
+                        showImage();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (btnAttachImage != null) {
+                            btnAttachImage.setEnabled(true);
+                        }
+                        Toast.makeText(EditNoteActivity.this, "Error attaching image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        e.printStackTrace();
+                    }
+                });
+    }
+
+    // CaptureActivity has already written the photo and its thumbnail
+    private void onPhotoTaken(ActivityResult result) {
+        Intent data = result.getData();
+        String path = data != null ? data.getStringExtra(CaptureActivity.EXTRA_IMAGE_PATH) : null;
+        if (result.getResultCode() == RESULT_OK && path != null) {
+            if (currentNote == null) {
+                // Recreated while the camera was open; bindNote picks the photo up
+                restoredImagePath = path;
+                return;
+            }
+            replaceImage(path);
+            showImage();
+        }
+    }
+
+    // An image imported in this editor and replaced again is deleted right away
+    private void replaceImage(String path) {
+        if (!imagePath.equals(originalImagePath)) {
+            discardImage(imagePath);
+        }
+        imagePath = path;
+    }
+
+    private void showImage() {
+        if (ivImage == null) {
+            return;
+        }
+        boolean hasImage = !imagePath.isEmpty();
+        if (hasImage) {
+            // Glide decodes the stored copy at the preview's size
+            Glide.with(this).load(new File(imagePath)).centerCrop().into(ivImage);
+        } else {
+            Glide.with(this).clear(ivImage);
+        }
+        ivImage.setVisibility(hasImage ? View.VISIBLE : View.GONE);
+        if (btnRemoveImage != null) {
+            btnRemoveImage.setVisibility(hasImage ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    private void discardImage(String path) {
+        if (path != null && !path.isEmpty() && noteRepository != null) {
+            noteRepository.execute(() -> {
+                NoteImages.delete(path);
+                return null;
+            }, null);
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // Before the note has loaded there is no selection of this instance's own yet
+        outState.putString("image_path", currentNote != null ? imagePath : restoredImagePath);
+    }
+
+    @Override
+    protected void onDestroy() {
+        // Leaving without saving drops an image imported here; a rotation keeps it
+        if (isFinishing() && !saved && !imagePath.equals(originalImagePath)) {
+            discardImage(imagePath);
+        }
+        super.onDestroy();
+    }
+
     private void setupAutoCompleteAdapters() {
         try {
             // Setup Tag adapter
@@ -195,6 +347,10 @@ public class EditNoteActivity extends AppCompatActivity {
 
     private void saveNote() {
         try {
+            if (currentNote == null) {
+                // Note is still loading
+                return;
+            }
             if (etTitle == null || etContent == null) {
                 Toast.makeText(this, "Error: Views not initialized", Toast.LENGTH_SHORT).show();
                 return;
@@ -223,24 +379,53 @@ public class EditNoteActivity extends AppCompatActivity {
                 ? spinnerNotifyType.getText().toString().trim()
                 : "Default";
 
+            // Captured before the note is overwritten, to tell whether the schedule must change
+            final boolean reminderChanged = currentNote.reminderTime != reminderTime
+                    || (reminderTime > 0 && !notifyType.equals(currentNote.notifyType));
+
             // Update note
             currentNote.title = title;
             currentNote.content = content;
             currentNote.tag = tag;
             currentNote.color = color;
-            currentNote.reminderTime = reminderTime != null ? reminderTime : "";
-            currentNote.reminderDate = reminderTime != null ? new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(Long.parseLong(reminderTime)) : "";
-
-            if (noteDatabase != null && noteDatabase.noteDao() != null) {
-                noteDatabase.noteDao().update(currentNote);
-                
-                // Update reminder if changed
-                if (reminderTime != null && !reminderTime.equals(currentNote.reminderTime)) {
-                    setReminder(title, Long.parseLong(reminderTime), notifyType);
-                }
-                
-                Toast.makeText(this, "Note updated successfully!", Toast.LENGTH_SHORT).show();
-                finish();
+            currentNote.reminderTime = reminderTime;
+            currentNote.notifyType = notifyType;
+            currentNote.imagePath = imagePath;
+
+            if (noteRepository != null) {
+                final long savedReminderTime = reminderTime;
+                btnSave.setEnabled(false);
+                noteRepository.update(currentNote, new NoteRepository.Callback<Void>() {
+                    @Override
+                    public void onResult(Void result) {
+                        saved = true;
+                        if (!originalImagePath.equals(currentNote.imagePath)) {
+                            // The old attachment is deleted unless a restored copy of the note still uses it
+                            noteRepository.releaseImage(originalImagePath);
+                        }
+
+                        // Update reminder if changed
+                        if (reminderChanged) {
+                            // Drops a notification still showing for the old time and re-arms the alarm
+                            ReminderScheduler.reminderChanged(EditNoteActivity.this, noteId);
+                            if (savedReminderTime > 0) {
+                                Toast.makeText(EditNoteActivity.this, "Reminder set for: " + DateFormatter.format(savedReminderTime), Toast.LENGTH_SHORT).show();
+                            }
+                        }
+
+                        Toast.makeText(EditNoteActivity.this, "Note updated successfully!", Toast.LENGTH_SHORT).show();
+                        // Lets MainActivity rebind just this row
+                        setResult(RESULT_OK, new Intent().putExtra("note_id", noteId));
+                        finish();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        btnSave.setEnabled(true);
+                        Toast.makeText(EditNoteActivity.this, "Error updating note: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                        e.printStackTrace();
+                    }
+                });
             } else {
                 Toast.makeText(this, "Error: Database not initialized", Toast.LENGTH_SHORT).show();
             }
@@ -255,60 +440,28 @@ public class EditNoteActivity extends AppCompatActivity {
             .setTitle("Delete Note")
             .setMessage("Are you sure you want to delete this note? This action cannot be undone.")
             .setPositiveButton("Delete", (dialog, which) -> {
-                try {
-                    if (noteDatabase != null && noteDatabase.noteDao() != null) {
-                        noteDatabase.noteDao().deleteNote(noteId);
-                        Toast.makeText(this, "Note deleted successfully!", Toast.LENGTH_SHORT).show();
-                        finish();
-                    }
-                } catch (Exception e) {
-                    Toast.makeText(this, "Error deleting note: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    e.printStackTrace();
+                if (noteRepository != null) {
+                    noteRepository.deleteNote(noteId, new NoteRepository.Callback<Void>() {
+                        @Override
+                        public void onResult(Void result) {
+                            ReminderScheduler.cancel(EditNoteActivity.this, noteId);
+                            Toast.makeText(EditNoteActivity.this, "Note deleted successfully!", Toast.LENGTH_SHORT).show();
+                            setResult(RESULT_OK, new Intent().putExtra("note_id", noteId));
+                            finish();
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            Toast.makeText(EditNoteActivity.this, "Error deleting note: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                            e.printStackTrace();
+                        }
+                    });
                 }
             })
             .setNegativeButton("Cancel", null)
             .show();
     }
 
-    private void setReminder(String title, long timeInMillis, String notifyType) {
-        try {
-            Log.d("EditNoteActivity", "Setting reminder for: " + title + " at: " + timeInMillis);
-            
-            Intent intent = new Intent(this, ReminderReceiver.class);
-            intent.putExtra("title", title);
-            intent.putExtra("notifyType", notifyType);
-            
-            int requestCode = (int) (timeInMillis % Integer.MAX_VALUE);
-            
-            // Fix PendingIntent flags for different Android versions
-            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                flags |= PendingIntent.FLAG_IMMUTABLE;
-            }
-            
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(this, requestCode, intent, flags);
-            
-            AlarmManager alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
-            if (alarmManager != null) {
-                // Use setExactAndAllowWhileIdle for better reliability
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, timeInMillis, pendingIntent);
-                } else {
-                    alarmManager.setExact(AlarmManager.RTC_WAKEUP, timeInMillis, pendingIntent);
-                }
-                
-                Log.d("EditNoteActivity", "Alarm set successfully for: " + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(timeInMillis));
-                Toast.makeText(this, "Reminder set for: " + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(timeInMillis), Toast.LENGTH_SHORT).show();
-            } else {
-                Log.e("EditNoteActivity", "AlarmManager is null");
-                Toast.makeText(this, "Error: Could not set reminder", Toast.LENGTH_SHORT).show();
-            }
-        } catch (Exception e) {
-            Log.e("EditNoteActivity", "Error setting reminder: " + e.getMessage(), e);
-            Toast.makeText(this, "Error setting reminder: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
-    }
-
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
@@ -329,11 +482,15 @@ public class EditNoteActivity extends AppCompatActivity {
     }
 
     private boolean handleBackPress() {
+        if (currentNote == null) {
+            return false;
+        }
         // Check if user has made changes
         String title = etTitle.getText().toString().trim();
         String content = etContent.getText().toString().trim();
         
-        if (!title.equals(currentNote.title) || !content.equals(currentNote.content)) {
+        if (!title.equals(currentNote.title) || !content.equals(currentNote.content)
+                || !imagePath.equals(originalImagePath)) {
             // Show confirmation dialog
             new AlertDialog.Builder(this)
                 .setTitle("Discard Changes?")
@@ -361,10 +518,10 @@ public class EditNoteActivity extends AppCompatActivity {
             shareText.append("📄 Content:\n").append(currentNote.content).append("\n\n");
             shareText.append("🏷️ Tag: ").append(currentNote.tag).append("\n");
             shareText.append("🎨 Color: ").append(currentNote.color).append("\n");
-            shareText.append("📅 Created: ").append(currentNote.date).append("\n");
+            shareText.append("📅 Created: ").append(DateFormatter.format(currentNote.date)).append("\n");
             
-            if (currentNote.reminderDate != null && !currentNote.reminderDate.isEmpty()) {
-                shareText.append("⏰ Reminder: ").append(currentNote.reminderDate).append("\n");
+            if (currentNote.reminderTime > 0) {
+                shareText.append("⏰ Reminder: ").append(DateFormatter.format(currentNote.reminderTime)).append("\n");
             }
             
             shareText.append("\n---\nShared from My Notes App");
@@ -1,32 +1,68 @@
 package vn.edu.fpt.com.projectandroid;
 
+import android.content.ClipData;
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+import android.widget.TextView;
+import android.graphics.Typeface;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResult;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
+import androidx.appcompat.view.ActionMode;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import androidx.room.Room;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.progressindicator.LinearProgressIndicator;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Locale;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import android.app.AlertDialog;
 
 public class MainActivity extends AppCompatActivity {
     private RecyclerView recyclerView;
     private NoteAdapter adapter;
-    private NoteDatabase noteDatabase;
+    private NoteRepository noteRepository;
+    private NoteSearchPipeline searchPipeline;
+    private NotePager notePager;
+    // Created on first use; nothing on the first frame needs them
+    private NoteExporter noteExporter;
+    private AlertDialog exportDialog;
+    private ActionMode selectionActionMode;
+    // Start of the oldest list request not yet shown, for NoteTrace
+    private long listRequestedAt = 0;
+    private NoteBackup noteBackup;
+    private final ActivityResultLauncher<String> backupLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/octet-stream"), this::backupNotes);
+    private final ActivityResultLauncher<String[]> restoreLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::restoreNotes);
+    // Editors return the id of the note they saved or deleted, so only that row is re-read
+    private final ActivityResultLauncher<Intent> editorLauncher = registerForActivityResult(
+            new ActivityResultContracts.StartActivityForResult(), this::onEditorResult);
+    // Note ids start at 1; 0 means no editor change is waiting to be patched in
+    private int changedNoteId = 0;
     private MaterialToolbar toolbar;
     private TextInputEditText searchView;
     private ChipGroup chipGroup;
@@ -34,22 +70,30 @@ public class MainActivity extends AppCompatActivity {
     private String currentSearchKeyword = "";
     private String currentFilter = "All";
     private SharedPreferences preferences;
-    private static final String PREF_NAME = "NoteAppPrefs";
+    // Set once the first frame is drawn; see onFirstFrame()
+    private boolean firstFrameDrawn = false;
+    private Menu optionsMenu;
+    // NoteApplication starts loading this file before the activity needs it
+    static final String PREF_NAME = "NoteAppPrefs";
     private static final String KEY_DARK_MODE = "dark_mode_enabled";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        // Apply saved theme before super.onCreate
+        StartupTimeline.onActivityCreate();
+        // Apply saved theme before super.onCreate; the mode is process-wide, so only the first activity reads it
         preferences = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        boolean isDarkMode = preferences.getBoolean(KEY_DARK_MODE, false);
-        if (isDarkMode) {
-            AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
-        } else {
-            AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
+        if (AppCompatDelegate.getDefaultNightMode() == AppCompatDelegate.MODE_NIGHT_UNSPECIFIED) {
+            boolean isDarkMode = preferences.getBoolean(KEY_DARK_MODE, false);
+            if (isDarkMode) {
+                AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
+            } else {
+                AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
+            }
         }
         
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        StartupTimeline.mark(StartupTimeline.CONTENT_SET);
 
         // Initialize views
         recyclerView = findViewById(R.id.recyclerView);
@@ -65,21 +109,41 @@ public class MainActivity extends AppCompatActivity {
             getSupportActionBar().setTitle("📝 My Notes");
         }
 
-        // Initialize database
-        noteDatabase = Room.databaseBuilder(getApplicationContext(),
-                NoteDatabase.class, "note_db")
-                .allowMainThreadQueries()
-                .fallbackToDestructiveMigration()
-                .build();
+        // Shared repository; NoteApplication already opened its database
+        noteRepository = NoteApplication.from(this).getNoteRepository();
 
         // Setup RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         adapter = new NoteAdapter(this);
         recyclerView.setAdapter(adapter);
+        adapter.setSelectionListener(this::onSelectionChanged);
+        adapter.setOnNoteClickListener(new NoteAdapter.OnNoteClickListener() {
+            @Override
+            public void onNoteClick(Note note) {
+                Intent intent = new Intent(MainActivity.this, EditNoteActivity.class);
+                intent.putExtra("note_id", note.id);
+                editorLauncher.launch(intent);
+            }
 
-        // Setup swipe to delete
-        ItemTouchHelper itemTouchHelper = new ItemTouchHelper(new NoteAdapter.SwipeToDeleteCallback(adapter, noteDatabase));
-        itemTouchHelper.attachToRecyclerView(recyclerView);
+            @Override
+            public void onNoteStatusChanged(Note note, boolean isCompleted) {
+                noteRepository.updateNoteStatus(note.id, isCompleted, result -> patchRow(note.id));
+            }
+
+            @Override
+            public void onNoteDelete(Note note) {
+                // Swiped away; the row is already gone from the adapter
+                deleteSwipedNote(note);
+            }
+        });
+        // Search results keep their ranking; the browse list is grouped into date sections
+        searchPipeline = new NoteSearchPipeline(noteRepository, notes ->
+                adapter.setNotes(notes, false, this::onListCommitted));
+        // Browsing without a keyword is paged; searching goes through the pipeline
+        notePager = new NotePager(noteRepository, notes ->
+                adapter.setNotes(notes, true, this::onListCommitted));
+        notePager.attachTo(recyclerView);
+        recyclerView.addItemDecoration(new NoteSectionDecoration(this, adapter));
 
         // Setup FAB with animation
         if (fab != null) {
@@ -89,7 +153,7 @@ public class MainActivity extends AppCompatActivity {
                     .withEndAction(() -> {
                         fab.animate().scaleX(1f).scaleY(1f).setDuration(100).start();
                         Intent intent = new Intent(MainActivity.this, AddNoteActivity.class);
-                        startActivity(intent);
+                        editorLauncher.launch(intent);
                     }).start();
             });
         }
@@ -100,10 +164,53 @@ public class MainActivity extends AppCompatActivity {
         // Setup chip group
         setupChipGroup();
 
-        // Load notes
+        // The list is loaded after the first frame; a fresh start shows the last snapshot until then
+        StartupTimeline.runAfterFirstDraw(getWindow().getDecorView(), this::onFirstFrame);
+        if (savedInstanceState == null) {
+            showSnapshot();
+        }
+    }
+
+    /**
+     * Work the first frame does not need, run once it has been drawn: the
+     * swipe helper, the dark mode menu icon and the list query.
+     */
+    private void onFirstFrame() {
+        if (isDestroyed()) {
+            return;
+        }
+        firstFrameDrawn = true;
+
+        // Setup swipe to delete
+        ItemTouchHelper itemTouchHelper = new ItemTouchHelper(new NoteAdapter.SwipeToDeleteCallback(adapter));
+        itemTouchHelper.attachToRecyclerView(recyclerView);
+
+        if (optionsMenu != null) {
+            updateDarkModeItem(optionsMenu);
+        }
+        StartupTimeline.mark(StartupTimeline.DEFERRED_DONE);
+
+        // A full load also covers an editor result delivered before the first frame
+        changedNoteId = 0;
         loadNotes();
     }
 
+    // Draws the rows saved by onStop while the first page is being queried
+    private void showSnapshot() {
+        Context appContext = getApplicationContext();
+        noteRepository.execute(() -> NoteSnapshot.read(appContext), notes -> {
+            // Never drawn over rows from the database or after the user changed the filter
+            if (isDestroyed() || notes.isEmpty() || notePager.hasPublished()
+                    || !isBrowsing() || !"All".equals(currentFilter)) {
+                return;
+            }
+            adapter.setNotes(notes, true, () -> {
+                updateEmptyState();
+                StartupTimeline.mark(StartupTimeline.SNAPSHOT_SHOWN);
+            });
+        });
+    }
+
     private void setupSearch() {
         if (searchView != null) {
             searchView.addTextChangedListener(new android.text.TextWatcher() {
@@ -113,7 +220,13 @@ public class MainActivity extends AppCompatActivity {
                 @Override
                 public void onTextChanged(CharSequence s, int start, int before, int count) {
                     currentSearchKeyword = s.toString();
-                    applyFilters();
+                    if (isBrowsing()) {
+                        applyFilters();
+                    } else {
+                        // Debounced; only the result for the latest text reaches the adapter
+                        notePager.cancel();
+                        searchPipeline.submit(currentTagOrNull(), currentSearchKeyword);
+                    }
                 }
 
                 @Override
@@ -130,15 +243,10 @@ public class MainActivity extends AppCompatActivity {
             chipGroup.check(R.id.chipAll);
             
             chipGroup.setOnCheckedStateChangeListener((group, checkedIds) -> {
-                Log.d("MainActivity", "Chip selection changed. Checked IDs: " + checkedIds.size());
-                
                 if (checkedIds.isEmpty()) {
                     currentFilter = "All";
-                    Log.d("MainActivity", "No chip selected, setting filter to 'All'");
                 } else {
                     int checkedId = checkedIds.get(0);
-                    Log.d("MainActivity", "Checked ID: " + checkedId);
-                    
                     // Map ID to text
                     String filterText = "";
                     if (checkedId == R.id.chipAll) {
@@ -154,10 +262,7 @@ public class MainActivity extends AppCompatActivity {
                     }
                     
                     currentFilter = filterText;
-                    Log.d("MainActivity", "Chip selected: '" + currentFilter + "'");
                 }
-                
-                Log.d("MainActivity", "Applying filters after chip selection");
                 applyFilters();
             });
             Log.d("MainActivity", "Chip group setup completed");
@@ -169,79 +274,173 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        loadNotes();
+        StartupTimeline.mark(StartupTimeline.ACTIVITY_RESUME);
+        if (!firstFrameDrawn) {
+            // onFirstFrame() does the first load
+            return;
+        }
+        // The shown list is kept as a snapshot: patch the row an editor changed,
+        // and only reload when something else wrote in the meantime
+        if (changedNoteId != 0) {
+            int noteId = changedNoteId;
+            changedNoteId = 0;
+            patchRow(noteId);
+        } else if (isListStale()) {
+            loadNotes();
+        }
     }
 
-    private void loadNotes() {
-        try {
-            List<Note> notes = noteDatabase.noteDao().getAllNotes();
-            adapter.setNotes(notes);
-            adapter.notifyDataSetChanged();
-            updateEmptyState();
-        } catch (Exception e) {
-            Log.e("MainActivity", "Error loading notes: " + e.getMessage(), e);
+    // Delivered before onResume when returning from AddNoteActivity or EditNoteActivity
+    private void onEditorResult(ActivityResult result) {
+        Intent data = result.getData();
+        if (result.getResultCode() == RESULT_OK && data != null) {
+            changedNoteId = data.getIntExtra("note_id", 0);
         }
     }
 
-    private void applyFilters() {
-        try {
-            Log.d("MainActivity", "=== APPLYING FILTERS ===");
-            Log.d("MainActivity", "Search keyword: '" + currentSearchKeyword + "'");
-            Log.d("MainActivity", "Filter tag: '" + currentFilter + "'");
-            
-            List<Note> allNotes = noteDatabase.noteDao().getAllNotes();
-            if (allNotes == null) {
-                allNotes = new ArrayList<>();
-            }
-
-            Log.d("MainActivity", "Total notes before filter: " + allNotes.size());
-
-            List<Note> filtered = new ArrayList<>();
-            for (Note note : allNotes) {
-                if (note == null) continue;
-
-                boolean match = true;
-                String reason = "";
+    private boolean isListStale() {
+        long writeVersion = noteRepository.getWriteVersion();
+        return isBrowsing() ? !notePager.isCurrent(writeVersion) : !searchPipeline.isCurrent(writeVersion);
+    }
 
-                // Apply tag filter
-                if (!currentFilter.equals("All")) {
-                    if (note.tag == null || note.tag.trim().isEmpty()) {
-                        match = false;
-                        reason = "Note has no tag";
-                    } else if (!note.tag.trim().equalsIgnoreCase(currentFilter.trim())) {
-                        match = false;
-                        reason = "Tag mismatch: note tag='" + note.tag + "', filter='" + currentFilter + "'";
-                    }
+    /**
+     * Re-reads one note after a single write and patches it into the browse
+     * list, so one row is rebound instead of the whole window. Falls back to
+     * loadNotes() when the list saw other writes; search results are always
+     * re-run because their order comes from the query's ranking.
+     */
+    private void patchRow(int noteId) {
+        if (!isBrowsing()) {
+            loadNotes();
+            return;
+        }
+        final long writeVersion = noteRepository.getWriteVersion();
+        noteRepository.getNoteById(noteId, new NoteRepository.Callback<Note>() {
+            @Override
+            public void onResult(Note note) {
+                if (isDestroyed()) {
+                    return;
                 }
+                if (!notePager.applyRowChange(noteId, note, writeVersion)) {
+                    loadNotes();
+                }
+            }
 
-                // Apply search filter
-                if (match && !currentSearchKeyword.isEmpty()) {
-                    String keyword = currentSearchKeyword.toLowerCase();
-                    boolean searchMatch = (note.title != null && note.title.toLowerCase().contains(keyword))
-                            || (note.content != null && note.content.toLowerCase().contains(keyword))
-                            || (note.tag != null && note.tag.toLowerCase().contains(keyword));
-                    
-                    if (!searchMatch) {
-                        match = false;
-                        reason = "Search keyword not found";
-                    }
+            @Override
+            public void onError(Exception e) {
+                Log.e("MainActivity", "Error reloading note " + noteId + ": " + e.getMessage(), e);
+                loadNotes();
+            }
+        });
+    }
+
+    // Patches the pager window like an editor result, so it no longer holds the note
+    private void deleteSwipedNote(Note note) {
+        noteRepository.deleteNote(note.id, new NoteRepository.Callback<Void>() {
+            @Override
+            public void onResult(Void result) {
+                ReminderScheduler.cancel(MainActivity.this, note.id);
+                Toast.makeText(MainActivity.this, "🗑️ Note deleted: " + note.title, Toast.LENGTH_SHORT).show();
+                if (!isDestroyed()) {
+                    patchRow(note.id);
                 }
+            }
 
-                if (match) {
-                    filtered.add(note);
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+                Toast.makeText(MainActivity.this, "Error deleting note", Toast.LENGTH_SHORT).show();
+                // Brings the row back
+                if (!isDestroyed()) {
+                    loadNotes();
                 }
             }
+        });
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // The next start draws these rows before its first query
+        List<Note> head = notePager.headRows(NoteSnapshot.MAX_ROWS);
+        if (head != null) {
+            Context appContext = getApplicationContext();
+            noteRepository.execute(() -> {
+                NoteSnapshot.write(appContext, head);
+                return null;
+            }, null);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (searchPipeline != null) {
+            searchPipeline.cancel();
+        }
+        if (notePager != null) {
+            notePager.cancel();
+        }
+        if (noteExporter != null) {
+            noteExporter.cancel();
+        }
+        if (selectionActionMode != null) {
+            selectionActionMode.finish();
+        }
+        dismissExportDialog();
+    }
+
+    private void loadNotes() {
+        long start = NoteTrace.begin(NoteTrace.MAIN_LOAD_NOTES);
+        markListRequested();
+        if (isBrowsing()) {
+            // Reload the loaded window in place so the scroll position survives
+            searchPipeline.cancel();
+            notePager.refresh(currentTagOrNull());
+        } else {
+            applyFilters();
+        }
+        NoteTrace.end(NoteTrace.MAIN_LOAD_NOTES, start);
+    }
 
-            Log.d("MainActivity", "Filtered notes count: " + filtered.size());
-            adapter.setNotes(filtered);
-            adapter.notifyDataSetChanged();
-            updateEmptyState();
+    private void applyFilters() {
+        long start = NoteTrace.begin(NoteTrace.MAIN_APPLY_FILTERS);
+        markListRequested();
+        if (isBrowsing()) {
+            searchPipeline.cancel();
+            notePager.reset(currentTagOrNull());
+        } else {
+            notePager.cancel();
+            searchPipeline.submitNow(currentTagOrNull(), currentSearchKeyword);
+        }
+        NoteTrace.end(NoteTrace.MAIN_APPLY_FILTERS, start);
+    }
+
+    private void markListRequested() {
+        if (NoteTrace.ENABLED && listRequestedAt == 0) {
+            listRequestedAt = SystemClock.elapsedRealtimeNanos();
+        }
+    }
 
-        } catch (Exception e) {
-            Log.e("MainActivity", "Error applying filters: " + e.getMessage(), e);
+    private void onListCommitted() {
+        updateEmptyState();
+        StartupTimeline.mark(StartupTimeline.LIST_SHOWN);
+        StartupTimeline.reportWhenComplete(this);
+        if (NoteTrace.ENABLED && listRequestedAt != 0) {
+            NoteTrace.record(NoteTrace.MAIN_LIST_LATENCY, SystemClock.elapsedRealtimeNanos() - listRequestedAt);
+            listRequestedAt = 0;
         }
     }
 
+    // No usable search terms, so the list is the date-ordered browse view
+    private boolean isBrowsing() {
+        return NoteMatcher.toFtsQuery(currentSearchKeyword).isEmpty();
+    }
+
+    private String currentTagOrNull() {
+        return "All".equals(currentFilter) ? null : currentFilter;
+    }
+
     private void updateEmptyState() {
         if (emptyState != null && recyclerView != null) {
             if (adapter.getItemCount() == 0) {
@@ -256,24 +455,38 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
-        getMenuInflater().inflate(R.menu.add_note_menu, menu);
+        getMenuInflater().inflate(R.menu.main_menu, menu);
+        
+        // Performance stats only exist in builds with tracing compiled in
+        MenuItem traceItem = menu.findItem(R.id.action_trace_stats);
+        if (traceItem != null) {
+            traceItem.setVisible(NoteTrace.ENABLED);
+        }
+
+        // The menu's default icon fits light mode; onFirstFrame() updates it otherwise
+        optionsMenu = menu;
+        if (firstFrameDrawn) {
+            updateDarkModeItem(menu);
+        }
         
-        // Update dark mode icon based on current theme
+        return true;
+    }
+
+    // Update dark mode icon based on current theme
+    private void updateDarkModeItem(Menu menu) {
         MenuItem darkModeItem = menu.findItem(R.id.action_dark_mode);
         if (darkModeItem != null) {
             boolean isDarkMode = AppCompatDelegate.getDefaultNightMode() == AppCompatDelegate.MODE_NIGHT_YES;
             darkModeItem.setIcon(isDarkMode ? R.drawable.ic_light_mode : R.drawable.ic_dark_mode);
             darkModeItem.setTitle(isDarkMode ? "Light Mode" : "Dark Mode");
         }
-        
-        return true;
     }
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == R.id.action_add_note) {
             Intent intent = new Intent(this, AddNoteActivity.class);
-            startActivity(intent);
+            editorLauncher.launch(intent);
             return true;
         } else if (item.getItemId() == R.id.action_dark_mode) {
             toggleDarkMode();
@@ -281,6 +494,15 @@ public class MainActivity extends AppCompatActivity {
         } else if (item.getItemId() == R.id.action_share) {
             showShareOptions();
             return true;
+        } else if (item.getItemId() == R.id.action_backup) {
+            backupLauncher.launch("notes_" + System.currentTimeMillis() + ".nbak");
+            return true;
+        } else if (item.getItemId() == R.id.action_restore) {
+            restoreLauncher.launch(new String[] {"*/*"});
+            return true;
+        } else if (item.getItemId() == R.id.action_trace_stats) {
+            showTraceStats();
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
@@ -304,7 +526,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void showShareOptions() {
-        String[] options = {"Share All Notes", "Share Selected Notes", "Share as Text", "Share as HTML"};
+        String[] options = {"Share All Notes", "Share Selected Notes", "Share Filtered Notes", "Share as Text", "Share as HTML", "Share as JSON"};
         
         new AlertDialog.Builder(this)
             .setTitle("📤 Share Options")
@@ -317,99 +539,59 @@ public class MainActivity extends AppCompatActivity {
                         shareSelectedNotes();
                         break;
                     case 2:
-                        shareAsText();
+                        shareFilteredNotes();
                         break;
                     case 3:
+                        shareAsText();
+                        break;
+                    case 4:
                         shareAsHTML();
                         break;
+                    case 5:
+                        shareAsJSON();
+                        break;
                 }
             })
             .show();
     }
 
     private void shareAllNotes() {
-        try {
-            List<Note> allNotes = noteDatabase.noteDao().getAllNotes();
-            if (allNotes == null || allNotes.isEmpty()) {
-                Toast.makeText(this, "No notes to share", Toast.LENGTH_SHORT).show();
-                return;
-            }
-            
-            StringBuilder shareText = new StringBuilder();
-            shareText.append("📚 MY NOTES COLLECTION\n");
-            shareText.append("Total Notes: ").append(allNotes.size()).append("\n\n");
-            
-            for (int i = 0; i < allNotes.size(); i++) {
-                Note note = allNotes.get(i);
-                shareText.append("📝 ").append(i + 1).append(". ").append(note.title).append("\n");
-                shareText.append("📄 ").append(note.content).append("\n");
-                shareText.append("🏷️ ").append(note.tag).append(" | 🎨 ").append(note.color).append("\n");
-                shareText.append("📅 ").append(note.date).append("\n");
-                if (note.reminderDate != null && !note.reminderDate.isEmpty()) {
-                    shareText.append("⏰ Reminder: ").append(note.reminderDate).append("\n");
-                }
-                shareText.append("\n---\n\n");
-            }
-            
-            shareText.append("Shared from My Notes App");
-            
-            Intent shareIntent = new Intent(Intent.ACTION_SEND);
-            shareIntent.setType("text/plain");
-            shareIntent.putExtra(Intent.EXTRA_SUBJECT, "My Notes Collection");
-            shareIntent.putExtra(Intent.EXTRA_TEXT, shareText.toString());
-            
-            startActivity(Intent.createChooser(shareIntent, "Share All Notes"));
-            
-        } catch (Exception e) {
-            Toast.makeText(this, "Error sharing notes: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            e.printStackTrace();
-        }
+        startExport(NoteExporter.Format.TEXT, "Share All Notes", "My Notes Collection", null, null);
     }
 
     private void shareSelectedNotes() {
-        // For now, share filtered notes
-        if (adapter.getItemCount() == 0) {
-            Toast.makeText(this, "No notes to share", Toast.LENGTH_SHORT).show();
+        if (!adapter.isSelectionMode()) {
+            Toast.makeText(this, "Long-press a note to start selecting", Toast.LENGTH_SHORT).show();
             return;
         }
-        
-        // Get current filtered notes
+        shareNotesByIds(adapter.getSelectedIds());
+    }
+
+    private void shareNotesByIds(List<Integer> ids) {
+        noteRepository.getNotesByIds(ids, notes -> {
+            if (notes.isEmpty()) {
+                Toast.makeText(this, "No notes to share", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            startExport(NoteExporter.Format.TEXT, "Share Selected Notes", "Selected Notes", notes, null);
+        });
+    }
+
+    private void shareFilteredNotes() {
         List<Note> filteredNotes = adapter.getCurrentNotes();
-        if (filteredNotes == null || filteredNotes.isEmpty()) {
+        if (filteredNotes.isEmpty()) {
             Toast.makeText(this, "No notes to share", Toast.LENGTH_SHORT).show();
             return;
         }
-        
-        StringBuilder shareText = new StringBuilder();
-        shareText.append("📚 FILTERED NOTES\n");
+
+        List<String> headerLines = new ArrayList<>();
         if (!currentSearchKeyword.isEmpty()) {
-            shareText.append("Search: '").append(currentSearchKeyword).append("'\n");
+            headerLines.add("Search: '" + currentSearchKeyword + "'");
         }
         if (!currentFilter.equals("All")) {
-            shareText.append("Filter: ").append(currentFilter).append("\n");
+            headerLines.add("Filter: " + currentFilter);
         }
-        shareText.append("Total: ").append(filteredNotes.size()).append(" notes\n\n");
-        
-        for (int i = 0; i < filteredNotes.size(); i++) {
-            Note note = filteredNotes.get(i);
-            shareText.append("📝 ").append(i + 1).append(". ").append(note.title).append("\n");
-            shareText.append("📄 ").append(note.content).append("\n");
-            shareText.append("🏷️ ").append(note.tag).append(" | 🎨 ").append(note.color).append("\n");
-            shareText.append("📅 ").append(note.date).append("\n");
-            if (note.reminderDate != null && !note.reminderDate.isEmpty()) {
-                shareText.append("⏰ Reminder: ").append(note.reminderDate).append("\n");
-            }
-            shareText.append("\n---\n\n");
-        }
-        
-        shareText.append("Shared from My Notes App");
-        
-        Intent shareIntent = new Intent(Intent.ACTION_SEND);
-        shareIntent.setType("text/plain");
-        shareIntent.putExtra(Intent.EXTRA_SUBJECT, "Filtered Notes");
-        shareIntent.putExtra(Intent.EXTRA_TEXT, shareText.toString());
-        
-        startActivity(Intent.createChooser(shareIntent, "Share Selected Notes"));
+        startExport(NoteExporter.Format.TEXT, "Share Filtered Notes", "Filtered Notes", filteredNotes, headerLines);
     }
 
     private void shareAsText() {
@@ -417,47 +599,317 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void shareAsHTML() {
-        try {
-            List<Note> allNotes = noteDatabase.noteDao().getAllNotes();
-            if (allNotes == null || allNotes.isEmpty()) {
-                Toast.makeText(this, "No notes to share", Toast.LENGTH_SHORT).show();
-                return;
+        startExport(NoteExporter.Format.HTML, "Share as HTML", "My Notes Collection", null, null);
+    }
+
+    private void shareAsJSON() {
+        startExport(NoteExporter.Format.JSON, "Share as JSON", "My Notes Collection", null, null);
+    }
+
+    /**
+     * Exports in the background with a progress dialog, then shares the file
+     * by URI. notes == null exports the whole table.
+     */
+    private void startExport(NoteExporter.Format format, String chooserTitle, String subject,
+                             List<Note> notes, List<String> headerLines) {
+        if (exportDialog != null) {
+            return;
+        }
+
+        LinearProgressIndicator progress = new LinearProgressIndicator(this);
+        progress.setIndeterminate(true);
+        FrameLayout container = new FrameLayout(this);
+        int padding = Math.round(24 * getResources().getDisplayMetrics().density);
+        container.setPadding(padding, padding / 2, padding, 0);
+        container.addView(progress);
+
+        exportDialog = new AlertDialog.Builder(this)
+            .setTitle("📤 Exporting notes...")
+            .setMessage("Preparing...")
+            .setView(container)
+            .setCancelable(false)
+            .setNegativeButton("Cancel", (dialog, which) -> {
+                getNoteExporter().cancel();
+                exportDialog = null;
+            })
+            .show();
+
+        NoteExporter.Listener listener = new NoteExporter.Listener() {
+            @Override
+            public void onProgress(int written, int total) {
+                if (exportDialog == null) {
+                    return;
+                }
+                progress.setIndeterminate(false);
+                progress.setMax(Math.max(total, 1));
+                progress.setProgressCompat(written, true);
+                exportDialog.setMessage(written + " / " + total);
             }
-            
-            StringBuilder htmlContent = new StringBuilder();
-            htmlContent.append("<!DOCTYPE html><html><head><title>My Notes</title>");
-            htmlContent.append("<style>body{font-family:Arial,sans-serif;margin:20px;}");
-            htmlContent.append(".note{border:1px solid #ddd;margin:10px 0;padding:15px;border-radius:8px;}");
-            htmlContent.append(".title{font-size:18px;font-weight:bold;color:#333;}");
-            htmlContent.append(".content{margin:10px 0;color:#666;}");
-            htmlContent.append(".meta{font-size:12px;color:#999;}");
-            htmlContent.append("</style></head><body>");
-            htmlContent.append("<h1>📚 My Notes Collection</h1>");
-            htmlContent.append("<p>Total Notes: ").append(allNotes.size()).append("</p>");
-            
-            for (Note note : allNotes) {
-                htmlContent.append("<div class='note'>");
-                htmlContent.append("<div class='title'>📝 ").append(note.title).append("</div>");
-                htmlContent.append("<div class='content'>📄 ").append(note.content).append("</div>");
-                htmlContent.append("<div class='meta'>🏷️ ").append(note.tag).append(" | 🎨 ").append(note.color).append(" | 📅 ").append(note.date).append("</div>");
-                if (note.reminderDate != null && !note.reminderDate.isEmpty()) {
-                    htmlContent.append("<div class='meta'>⏰ Reminder: ").append(note.reminderDate).append("</div>");
+
+            @Override
+            public void onExported(Uri uri, NoteExporter.Format exportedFormat, int count) {
+                dismissExportDialog();
+                if (count == 0) {
+                    Toast.makeText(MainActivity.this, "No notes to share", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                try {
+                    Intent shareIntent = new Intent(Intent.ACTION_SEND);
+                    shareIntent.setType(exportedFormat.mimeType);
+                    shareIntent.putExtra(Intent.EXTRA_SUBJECT, subject);
+                    shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
+                    // ClipData carries the read grant through the chooser to the target app
+                    shareIntent.setClipData(ClipData.newRawUri("", uri));
+                    shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+
+                    startActivity(Intent.createChooser(shareIntent, chooserTitle));
+                } catch (Exception e) {
+                    Toast.makeText(MainActivity.this, "Error sharing notes: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    e.printStackTrace();
                 }
-                htmlContent.append("</div>");
             }
-            
-            htmlContent.append("<hr><p><em>Shared from My Notes App</em></p></body></html>");
-            
-            Intent shareIntent = new Intent(Intent.ACTION_SEND);
-            shareIntent.setType("text/html");
-            shareIntent.putExtra(Intent.EXTRA_SUBJECT, "My Notes Collection");
-            shareIntent.putExtra(Intent.EXTRA_TEXT, htmlContent.toString());
-            
-            startActivity(Intent.createChooser(shareIntent, "Share as HTML"));
-            
-        } catch (Exception e) {
-            Toast.makeText(this, "Error sharing HTML: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            e.printStackTrace();
+
+            @Override
+            public void onError(Exception e) {
+                dismissExportDialog();
+                Toast.makeText(MainActivity.this, "Error exporting notes: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        };
+
+        String title = format == NoteExporter.Format.TEXT ? subject.toUpperCase(Locale.ROOT) : subject;
+        if (notes == null) {
+            getNoteExporter().exportAll(format, title, listener);
+        } else {
+            getNoteExporter().exportNotes(notes, format, title, headerLines, listener);
+        }
+    }
+
+    private NoteExporter getNoteExporter() {
+        if (noteExporter == null) {
+            noteExporter = new NoteExporter(this, noteRepository);
+        }
+        return noteExporter;
+    }
+
+    private NoteBackup getNoteBackup() {
+        if (noteBackup == null) {
+            noteBackup = new NoteBackup(this, noteRepository);
+        }
+        return noteBackup;
+    }
+
+    private void dismissExportDialog() {
+        if (exportDialog != null) {
+            exportDialog.dismiss();
+            exportDialog = null;
         }
     }
+
+    private void backupNotes(Uri uri) {
+        if (uri == null) {
+            return; // Picker cancelled
+        }
+        Toast.makeText(this, "💾 Backing up notes...", Toast.LENGTH_SHORT).show();
+        getNoteBackup().backup(uri, new NoteRepository.Callback<Integer>() {
+            @Override
+            public void onResult(Integer count) {
+                Toast.makeText(MainActivity.this, "Backed up " + count + " notes", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(MainActivity.this, "Error backing up notes: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void restoreNotes(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        new AlertDialog.Builder(this)
+            .setTitle("Restore Notes?")
+            .setMessage("Notes from the backup will be added to your current notes.")
+            .setPositiveButton("Restore", (dialog, which) -> {
+                Toast.makeText(this, "📥 Restoring notes...", Toast.LENGTH_SHORT).show();
+                getNoteBackup().restore(uri, new NoteRepository.Callback<Integer>() {
+                    @Override
+                    public void onResult(Integer count) {
+                        Toast.makeText(MainActivity.this, "Restored " + count + " notes", Toast.LENGTH_SHORT).show();
+                        ReminderScheduler.reschedule(MainActivity.this);
+                        loadNotes();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(MainActivity.this, "Error restoring notes: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                        e.printStackTrace();
+                    }
+                });
+            })
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+
+    // Multi-select: a long press starts an action mode whose actions run as set-based writes
+    private void onSelectionChanged(int count) {
+        if (count == 0) {
+            if (selectionActionMode != null) {
+                selectionActionMode.finish();
+            }
+            return;
+        }
+        if (selectionActionMode == null) {
+            selectionActionMode = startSupportActionMode(selectionCallback);
+        }
+        if (selectionActionMode != null) {
+            selectionActionMode.setTitle(count + " selected");
+        }
+    }
+
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.selection_menu, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            List<Integer> ids = adapter.getSelectedIds();
+            int itemId = item.getItemId();
+            if (itemId == R.id.action_selection_share) {
+                shareNotesByIds(ids);
+            } else if (itemId == R.id.action_selection_delete) {
+                confirmDeleteSelected(ids);
+            } else if (itemId == R.id.action_selection_complete) {
+                noteRepository.updateNotesStatus(ids, true, bulkCallback("✅ Marked as done"));
+            } else if (itemId == R.id.action_selection_incomplete) {
+                noteRepository.updateNotesStatus(ids, false, bulkCallback("Marked as not done"));
+            } else if (itemId == R.id.action_selection_tag) {
+                String[] tags = getResources().getStringArray(R.array.tags);
+                new AlertDialog.Builder(MainActivity.this)
+                    .setTitle("🏷️ Change Tag")
+                    .setItems(tags, (dialog, which) ->
+                        noteRepository.updateNotesTag(ids, tags[which], bulkCallback("Tag changed to " + tags[which])))
+                    .show();
+            } else if (itemId == R.id.action_selection_color) {
+                String[] colors = getResources().getStringArray(R.array.colors);
+                new AlertDialog.Builder(MainActivity.this)
+                    .setTitle("🎨 Change Color")
+                    .setItems(colors, (dialog, which) ->
+                        noteRepository.updateNotesColor(ids, colors[which], bulkCallback("Color changed to " + colors[which])))
+                    .show();
+            } else if (itemId == R.id.action_selection_select_all) {
+                adapter.selectAll();
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            selectionActionMode = null;
+            adapter.clearSelection();
+        }
+    };
+
+    private void confirmDeleteSelected(List<Integer> ids) {
+        new AlertDialog.Builder(this)
+            .setTitle("Delete Notes?")
+            .setMessage("Delete " + ids.size() + " selected notes?")
+            .setPositiveButton("Delete", (dialog, which) -> {
+                NoteRepository.Callback<Integer> callback = bulkCallback("🗑️ Notes deleted");
+                noteRepository.deleteNotes(ids, new NoteRepository.Callback<Integer>() {
+                    @Override
+                    public void onResult(Integer count) {
+                        ReminderScheduler.cancel(MainActivity.this, ids);
+                        callback.onResult(count);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        callback.onError(e);
+                    }
+                });
+            })
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+
+    // Ends selection mode and reloads once the bulk write has committed
+    private NoteRepository.Callback<Integer> bulkCallback(String message) {
+        return new NoteRepository.Callback<Integer>() {
+            @Override
+            public void onResult(Integer count) {
+                Toast.makeText(MainActivity.this, message + " (" + count + ")", Toast.LENGTH_SHORT).show();
+                if (selectionActionMode != null) {
+                    selectionActionMode.finish();
+                }
+                loadNotes();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(MainActivity.this, "Error updating notes: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                e.printStackTrace();
+            }
+        };
+    }
+
+    private void showTraceStats() {
+        Context appContext = getApplicationContext();
+        // Startup reports of earlier runs and builds are kept on disk
+        noteRepository.execute(() -> StartupTimeline.readHistory(appContext), history -> {
+            if (isDestroyed()) {
+                return;
+            }
+            StringBuilder stats = new StringBuilder(NoteTrace.dump());
+            stats.append("\nstartup history (ms since process start or activity creation)\n");
+            for (String line : history) {
+                stats.append(line).append('\n');
+            }
+            showTraceStats(stats.toString());
+        });
+    }
+
+    private void showTraceStats(String stats) {
+        Log.i("NoteTrace", stats);
+
+        TextView textView = new TextView(this);
+        textView.setTypeface(Typeface.MONOSPACE);
+        textView.setTextSize(10);
+        textView.setTextIsSelectable(true);
+        textView.setText(stats);
+        int padding = Math.round(16 * getResources().getDisplayMetrics().density);
+        textView.setPadding(padding, padding, padding, padding);
+        HorizontalScrollView horizontal = new HorizontalScrollView(this);
+        horizontal.addView(textView);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(horizontal);
+
+        new AlertDialog.Builder(this)
+            .setTitle("Performance Stats")
+            .setView(scrollView)
+            .setPositiveButton("Close", null)
+            .setNeutralButton("Reset", (dialog, which) -> NoteTrace.reset())
+            .show();
+    }
+
+    // Also available without the UI: adb shell dumpsys activity vn.edu.fpt.com.projectandroid/.MainActivity
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd, @NonNull PrintWriter writer,
+                     @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.println(prefix + "NoteTrace:");
+        writer.println(NoteTrace.dump());
+        writer.println(prefix + "Last start: " + StartupTimeline.getLastReport());
+    }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package vn.edu.fpt.com.projectandroid;
 
 import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.annotation.NonNull;
+import java.util.Objects;
 
-@Entity(tableName = "notes")
+@Entity(tableName = "notes",
+        indices = {@Index("date"), @Index({"tag", "date"}), @Index("reminderTime"), @Index("imagePath")})
 public class Note {
     @PrimaryKey(autoGenerate = true)
     public int id;
@@ -12,25 +16,28 @@ public class Note {
     @NonNull
     public String title = "";
     public String content = "";
-    public String date = ""; // yyyy-MM-dd HH:mm
+    public long date = 0; // Thời điểm tạo (epoch millis)
     public String tag = "Personal";
     public String color = "Red";
     public boolean isCompleted = false;
     public String imagePath = ""; // Đường dẫn ảnh đính kèm
-    public String reminderTime = ""; // Thời gian nhắc nhở (timestamp hoặc yyyy-MM-dd HH:mm)
-    public String reminderDate = ""; // Ngày nhắc nhở hiển thị (yyyy-MM-dd HH:mm)
+    public long reminderTime = 0; // Thời gian nhắc nhở (epoch millis, 0 = không có)
+    public String notifyType = "Default"; // Kiểu thông báo: Default, Sound, Vibrate, Popup
+
+    @Ignore
+    public String searchSnippet = null; // Đoạn trích có đánh dấu từ khóa, chỉ có khi tìm kiếm
 
     // Default constructor
     public Note() {
         this.title = "";
         this.content = "";
-        this.date = "";
+        this.date = 0;
         this.tag = "Personal";
         this.color = "Red";
         this.isCompleted = false;
         this.imagePath = "";
-        this.reminderTime = "";
-        this.reminderDate = "";
+        this.reminderTime = 0;
+        this.notifyType = "Default";
     }
 
     // Constructor with parameters
@@ -41,7 +48,32 @@ public class Note {
         this.color = color != null ? color : "Red";
         this.isCompleted = false;
         this.imagePath = "";
-        this.reminderTime = "";
-        this.reminderDate = "";
+        this.reminderTime = 0;
+        this.notifyType = "Default";
+    }
+
+    // Content equality, used by NoteAdapter's DiffUtil to decide whether a row must be rebound
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Note)) return false;
+        Note other = (Note) o;
+        return id == other.id
+                && isCompleted == other.isCompleted
+                && date == other.date
+                && reminderTime == other.reminderTime
+                && title.equals(other.title)
+                && Objects.equals(content, other.content)
+                && Objects.equals(tag, other.tag)
+                && Objects.equals(color, other.color)
+                && Objects.equals(imagePath, other.imagePath)
+                && Objects.equals(notifyType, other.notifyType)
+                && Objects.equals(searchSnippet, other.searchSnippet);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, content, date, tag, color, isCompleted,
+                imagePath, reminderTime, notifyType, searchSnippet);
     }
-} 
\ No newline at end of file
+}
@@ -2,27 +2,67 @@ package vn.edu.fpt.com.projectandroid;
 
 import android.content.Intent;
 import android.view.*;
+import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.LinearLayout;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.ItemTouchHelper;
-import androidx.appcompat.app.AppCompatDelegate;
 import java.util.List;
 import java.util.ArrayList;
-import android.graphics.Color;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import com.google.android.material.card.MaterialCardView;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.RectF;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import androidx.core.content.ContextCompat;
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
 import com.google.android.material.checkbox.MaterialCheckBox;
 import com.google.android.material.chip.Chip;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
 import android.view.View;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
-public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder> {
-    private List<Note> noteList;
+public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder> {
+    private static final String TAG = "NoteAdapter";
+    // Sectioning has its own thread so it never queues behind, or holds up, database work
+    private static final ExecutorService SECTION_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "note-sections");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
     private OnNoteClickListener listener;
     private Context context;
+    // Resolved once; the activity is recreated when the theme changes
+    private final NoteStyles styles;
+    // Thumbnail loads follow the activity's lifecycle
+    private final RequestManager glide;
+    private final int thumbnailSize;
+    // Selection is kept by note id, so it survives list updates and paging
+    private final Set<Integer> selectedIds = new HashSet<>();
+    private boolean selectionMode = false;
+    private SelectionListener selectionListener;
+    // Rebinds only the checked state of a row
+    private static final Object PAYLOAD_SELECTION = new Object();
+    // Bumped by every setNotes; a sectioning pass for an older list is dropped
+    private int listGeneration = 0;
+    // Sections of the committed list, swapped in together with it
+    private NoteSections sections = NoteSections.EMPTY;
+    private RecyclerView recyclerView;
 
     public interface OnNoteClickListener {
         void onNoteClick(Note note);
@@ -30,41 +70,260 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
         void onNoteDelete(Note note);
     }
 
+    public interface SelectionListener {
+        // count is 0 when selection mode ends
+        void onSelectionChanged(int count);
+    }
+
+    // Rows are identified by note id; a row is rebound only when Note.equals reports a change
+    private static final DiffUtil.ItemCallback<Note> DIFF_CALLBACK = new DiffUtil.ItemCallback<Note>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Note oldItem, @NonNull Note newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Note oldItem, @NonNull Note newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
     public NoteAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.noteList = new ArrayList<>();
+        this.styles = NoteStyles.forContext(context);
+        this.glide = Glide.with(context);
+        this.thumbnailSize = context.getResources().getDimensionPixelSize(R.dimen.note_thumbnail_size);
+        setHasStableIds(true);
     }
 
     public NoteAdapter(Context context, List<Note> noteList) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.noteList = noteList != null ? noteList : new ArrayList<>();
+        this.styles = NoteStyles.forContext(context);
+        this.glide = Glide.with(context);
+        this.thumbnailSize = context.getResources().getDimensionPixelSize(R.dimen.note_thumbnail_size);
+        setHasStableIds(true);
+        setNotes(noteList);
     }
 
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
+    /**
+     * Prepares date sections and display text on a background thread, then
+     * diffs against the current list there too and dispatches only the
+     * resulting insert, remove, move and change events. grouped lists get
+     * date section headers (see NoteSectionDecoration); others keep their order.
+     */
     public void setNotes(List<Note> notes) {
-        this.noteList = notes != null ? notes : new ArrayList<>();
-        notifyDataSetChanged();
+        setNotes(notes, false, null);
+    }
+
+    public void setNotes(List<Note> notes, boolean grouped, Runnable onCommitted) {
+        // Always hand over a fresh list; the differ ignores a list it already holds
+        final List<Note> snapshot = notes != null ? new ArrayList<>(notes) : new ArrayList<>();
+        final int generation = ++listGeneration;
+        final NoteSections previous = sections;
+        SECTION_EXECUTOR.execute(() -> {
+            final NoteSections sectioned;
+            try {
+                sectioned = NoteSections.apply(snapshot, grouped, System.currentTimeMillis(), previous);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Sectioning failed: " + e.getMessage(), e);
+                return;
+            }
+            MAIN_HANDLER.post(() -> {
+                if (generation != listGeneration) {
+                    return;
+                }
+                submitList(snapshot, () -> {
+                    sections = sectioned;
+                    if (recyclerView != null) {
+                        // Rows whose neighbour changed may have gained or lost a header
+                        recyclerView.invalidateItemDecorations();
+                    }
+                    if (onCommitted != null) {
+                        onCommitted.run();
+                    }
+                });
+            });
+        });
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        this.recyclerView = null;
+    }
+
+    /**
+     * Header text of the section the row belongs to, or null when the list
+     * is not grouped.
+     */
+    String getSectionTitle(int position) {
+        return sections.title(position);
+    }
+
+    // Only compares the keys NoteSections computed; nothing is parsed here
+    boolean isSectionStart(int position) {
+        return sections.isSectionStart(position);
     }
 
     public void setOnNoteClickListener(OnNoteClickListener listener) {
         this.listener = listener;
     }
 
+    public void setSelectionListener(SelectionListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    public boolean isSelectionMode() {
+        return selectionMode;
+    }
+
+    public List<Integer> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+
+    /**
+     * Selects every row currently in the list.
+     */
+    public void selectAll() {
+        selectionMode = true;
+        for (Note note : getCurrentList()) {
+            selectedIds.add(note.id);
+        }
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * Leaves selection mode and unchecks every row.
+     */
+    public void clearSelection() {
+        if (!selectionMode) {
+            return;
+        }
+        selectionMode = false;
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        dispatchSelectionChanged();
+    }
+
+    private void toggleSelection(int position) {
+        Note note = getItem(position);
+        if (!selectedIds.remove(note.id)) {
+            selectedIds.add(note.id);
+        }
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+        if (selectedIds.isEmpty()) {
+            selectionMode = false;
+        }
+        dispatchSelectionChanged();
+    }
+
+    private void dispatchSelectionChanged() {
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selectionMode ? selectedIds.size() : 0);
+        }
+    }
+
     @NonNull
     @Override
     public NoteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        long traceStart = NoteTrace.begin(NoteTrace.ADAPTER_CREATE);
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_note, parent, false);
-        return new NoteViewHolder(view);
+        NoteViewHolder holder = new NoteViewHolder(view);
+
+        // Listeners are attached once per holder and look the note up at event time,
+        // so binding allocates nothing and a recycled holder never acts on a stale note
+        holder.itemView.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            if (selectionMode) {
+                toggleSelection(position);
+                return;
+            }
+            Note note = getItem(position);
+            if (listener != null) {
+                listener.onNoteClick(note);
+            } else {
+                // Default behavior: open EditNoteActivity
+                Intent intent = new Intent(context, EditNoteActivity.class);
+                intent.putExtra("note_id", note.id);
+                context.startActivity(intent);
+            }
+        });
+
+        // Long press starts selection mode with this row selected
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION || selectionListener == null) {
+                return false;
+            }
+            selectionMode = true;
+            toggleSelection(position);
+            return true;
+        });
+
+        if (holder.checkboxDone != null) {
+            holder.checkboxDone.setOnCheckedChangeListener((buttonView, isChecked) -> {
+                int position = holder.getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                Note note = getItem(position);
+                // setChecked() during bind matches the note and is ignored here
+                if (note.isCompleted != isChecked && listener != null) {
+                    listener.onNoteStatusChanged(note, isChecked);
+                }
+            });
+        }
+        NoteTrace.end(NoteTrace.ADAPTER_CREATE, traceStart);
+        return holder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull NoteViewHolder holder, int position) {
-        try {
-            if (noteList == null || position >= noteList.size()) {
-                return;
+    public void onBindViewHolder(@NonNull NoteViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && onlySelectionPayloads(payloads)) {
+            bindSelection(holder, getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    private static boolean onlySelectionPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SELECTION) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    private void bindSelection(NoteViewHolder holder, Note note) {
+        if (holder.card != null) {
+            holder.card.setChecked(selectionMode && selectedIds.contains(note.id));
+        }
+    }
 
-            Note note = noteList.get(position);
+    @Override
+    public void onBindViewHolder(@NonNull NoteViewHolder holder, int position) {
+        long traceStart = NoteTrace.begin(NoteTrace.ADAPTER_BIND);
+        try {
+            Note note = getItem(position);
             if (note == null) {
                 return;
             }
@@ -74,10 +333,16 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
                 holder.tvTitle.setText(note.title != null ? note.title : "");
             }
             if (holder.tvContent != null) {
-                holder.tvContent.setText(note.content != null ? note.content : "");
+                if (note.searchSnippet != null) {
+                    holder.tvContent.setText(highlightSnippet(note.searchSnippet));
+                } else {
+                    holder.tvContent.setText(note.content != null ? note.content : "");
+                }
             }
             if (holder.tvDate != null) {
-                holder.tvDate.setText(note.date != null ? note.date : "");
+                // Formatted by NoteSections off the main thread
+                String dateText = sections.dateText(position, note);
+                holder.tvDate.setText(dateText != null ? dateText : DateFormatter.format(note.date));
             }
             if (holder.chipTag != null) {
                 holder.chipTag.setText(note.tag != null ? note.tag : "");
@@ -87,169 +352,137 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
             if (holder.checkboxDone != null) {
                 holder.checkboxDone.setChecked(note.isCompleted);
             }
+
+            bindThumbnail(holder, note);
             
             // Set color indicator based on note color
-            setColorIndicator(holder, note.color);
+            setColorIndicator(holder, position, note);
             
             // Set tag chip color based on tag
-            setTagChipColor(holder, note.tag);
+            setTagChipColor(holder, position, note);
             
             // Show/hide reminder indicator
             if (holder.reminderIndicator != null && holder.tvReminder != null) {
-                if (note.reminderDate != null && !note.reminderDate.isEmpty()) {
+                if (note.reminderTime > 0) {
                     holder.reminderIndicator.setVisibility(View.VISIBLE);
-                    holder.tvReminder.setText("⏰ " + note.reminderDate);
+                    String reminderText = sections.reminderText(position, note);
+                    holder.tvReminder.setText(reminderText != null
+                            ? reminderText : "⏰ " + DateFormatter.format(note.reminderTime));
                 } else {
                     holder.reminderIndicator.setVisibility(View.GONE);
                 }
             }
-            
-            // Set click listeners
-            if (holder.itemView != null) {
-                holder.itemView.setOnClickListener(v -> {
-                    if (listener != null) {
-                        listener.onNoteClick(note);
-                    } else {
-                        // Default behavior: open EditNoteActivity
-                        Intent intent = new Intent(context, EditNoteActivity.class);
-                        intent.putExtra("note_id", note.id);
-                        context.startActivity(intent);
-                    }
-                });
-            }
-            
-            if (holder.checkboxDone != null) {
-                holder.checkboxDone.setOnCheckedChangeListener((buttonView, isChecked) -> {
-                    if (listener != null) {
-                        listener.onNoteStatusChanged(note, isChecked);
-                    }
-                });
-            }
+
+            bindSelection(holder, note);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            NoteTrace.end(NoteTrace.ADAPTER_BIND, traceStart);
         }
     }
 
-    private void setColorIndicator(NoteViewHolder holder, String color) {
-        try {
-            if (holder.colorIndicator == null || color == null) {
-                return;
-            }
-
-            int colorRes;
-            switch (color.toLowerCase()) {
-                case "red":
-                    colorRes = Color.parseColor("#FF6B6B");
-                    break;
-                case "blue":
-                    colorRes = Color.parseColor("#4ECDC4");
-                    break;
-                case "green":
-                    colorRes = Color.parseColor("#4CAF50");
-                    break;
-                case "yellow":
-                    colorRes = Color.parseColor("#FFC107");
-                    break;
-                case "purple":
-                    colorRes = Color.parseColor("#9C27B0");
-                    break;
-                case "orange":
-                    colorRes = Color.parseColor("#FF9800");
-                    break;
-                default:
-                    colorRes = Color.parseColor("#FF6B6B");
-                    break;
-            }
-            holder.colorIndicator.setBackgroundColor(colorRes);
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void bindThumbnail(NoteViewHolder holder, Note note) {
+        if (holder.ivThumbnail == null) {
+            return;
+        }
+        if (note.imagePath != null && !note.imagePath.isEmpty()) {
+            holder.ivThumbnail.setVisibility(View.VISIBLE);
+            NoteImages.loadThumbnail(glide, holder.ivThumbnail, note.imagePath, thumbnailSize);
+        } else {
+            // Also cancels a load still running for the row's previous note
+            glide.clear(holder.ivThumbnail);
+            holder.ivThumbnail.setVisibility(View.GONE);
         }
     }
 
-    private void setTagChipColor(NoteViewHolder holder, String tag) {
-        try {
-            if (holder.chipTag == null || tag == null) {
-                return;
-            }
+    @Override
+    public void onViewRecycled(@NonNull NoteViewHolder holder) {
+        // Returns the bitmap to Glide's pool instead of keeping it in a pooled view
+        if (holder.ivThumbnail != null) {
+            glide.clear(holder.ivThumbnail);
+        }
+    }
 
-            boolean isDarkMode = AppCompatDelegate.getDefaultNightMode() == AppCompatDelegate.MODE_NIGHT_YES;
-            int backgroundColor;
-            int textColor;
-            
-            if (isDarkMode) {
-                // Dark mode colors
-                switch (tag.toLowerCase()) {
-                    case "work":
-                        backgroundColor = Color.parseColor("#1E3A5F");
-                        textColor = Color.parseColor("#64B5F6");
-                        break;
-                    case "personal":
-                        backgroundColor = Color.parseColor("#4A2C4A");
-                        textColor = Color.parseColor("#CE93D8");
-                        break;
-                    case "important":
-                        backgroundColor = Color.parseColor("#4A2C2C");
-                        textColor = Color.parseColor("#EF5350");
-                        break;
-                    default:
-                        backgroundColor = Color.parseColor("#424242");
-                        textColor = Color.parseColor("#BDBDBD");
-                        break;
+    // Turns the char(2)/char(3) markers produced by the FTS snippet into bold spans
+    private static CharSequence highlightSnippet(String snippet) {
+        SpannableStringBuilder builder = new SpannableStringBuilder();
+        int highlightStart = -1;
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (c == NoteSearchResult.HIGHLIGHT_START) {
+                highlightStart = builder.length();
+            } else if (c == NoteSearchResult.HIGHLIGHT_END) {
+                if (highlightStart >= 0) {
+                    builder.setSpan(new StyleSpan(Typeface.BOLD), highlightStart, builder.length(),
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    highlightStart = -1;
                 }
             } else {
-                // Light mode colors
-                switch (tag.toLowerCase()) {
-                    case "work":
-                        backgroundColor = Color.parseColor("#E3F2FD");
-                        textColor = Color.parseColor("#1976D2");
-                        break;
-                    case "personal":
-                        backgroundColor = Color.parseColor("#F3E5F5");
-                        textColor = Color.parseColor("#7B1FA2");
-                        break;
-                    case "important":
-                        backgroundColor = Color.parseColor("#FFEBEE");
-                        textColor = Color.parseColor("#D32F2F");
-                        break;
-                    default:
-                        backgroundColor = Color.parseColor("#F5F5F5");
-                        textColor = Color.parseColor("#757575");
-                        break;
-                }
+                builder.append(c);
             }
-            
-            holder.chipTag.setChipBackgroundColorResource(android.R.color.transparent);
-            holder.chipTag.setChipBackgroundColor(android.content.res.ColorStateList.valueOf(backgroundColor));
-            holder.chipTag.setTextColor(textColor);
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+        return builder;
     }
 
-    @Override
-    public int getItemCount() {
-        return noteList != null ? noteList.size() : 0;
+    // Style codes are resolved by NoteSections off the main thread; nothing is written to the note
+    private void setColorIndicator(NoteViewHolder holder, int position, Note note) {
+        if (holder.colorIndicator != null) {
+            holder.colorIndicator.setBackgroundColor(styles.indicatorColor(sections.colorCode(position, note)));
+        }
+    }
+
+    private void setTagChipColor(NoteViewHolder holder, int position, Note note) {
+        if (holder.chipTag != null) {
+            int tagCode = sections.tagCode(position, note);
+            holder.chipTag.setChipBackgroundColor(styles.tagBackground(tagCode));
+            holder.chipTag.setTextColor(styles.tagTextColor(tagCode));
+        }
     }
 
     public List<Note> getCurrentNotes() {
-        return noteList != null ? new ArrayList<>(noteList) : new ArrayList<>();
+        return new ArrayList<>(getCurrentList());
+    }
+
+    /**
+     * Drops one row right away and returns its note, e.g. after a swipe,
+     * before the owner of the list publishes it again without the row.
+     * Sectioning passes still running for older lists are dropped, and the
+     * shown sections lose the same row, so headers stay in step.
+     */
+    public Note removeNoteAt(int position) {
+        List<Note> notes = new ArrayList<>(getCurrentList());
+        Note removed = notes.remove(position);
+        // sections always describes the current list, so the same position is dropped from it
+        final NoteSections remaining = sections.without(position);
+        ++listGeneration;
+        submitList(notes, () -> {
+            sections = remaining;
+            if (recyclerView != null) {
+                recyclerView.invalidateItemDecorations();
+            }
+        });
+        return removed;
     }
 
     public static class NoteViewHolder extends RecyclerView.ViewHolder {
         TextView tvTitle, tvContent, tvDate, tvReminder;
         MaterialCheckBox checkboxDone;
+        ImageView ivThumbnail;
         View colorIndicator;
         Chip chipTag;
         LinearLayout reminderIndicator;
+        MaterialCardView card;
 
         public NoteViewHolder(@NonNull View itemView) {
             super(itemView);
+            card = itemView instanceof MaterialCardView ? (MaterialCardView) itemView : null;
             tvTitle = itemView.findViewById(R.id.tvTitle);
             tvContent = itemView.findViewById(R.id.tvContent);
             tvDate = itemView.findViewById(R.id.tvDate);
             tvReminder = itemView.findViewById(R.id.tvReminder);
             checkboxDone = itemView.findViewById(R.id.checkboxDone);
             colorIndicator = itemView.findViewById(R.id.colorIndicator);
+            ivThumbnail = itemView.findViewById(R.id.ivThumbnail);
             chipTag = itemView.findViewById(R.id.chipTag);
             reminderIndicator = itemView.findViewById(R.id.reminderIndicator);
         }
@@ -257,12 +490,25 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
 
     public static class SwipeToDeleteCallback extends ItemTouchHelper.SimpleCallback {
         private NoteAdapter adapter;
-        private NoteDatabase noteDatabase;
 
-        public SwipeToDeleteCallback(NoteAdapter adapter, NoteDatabase noteDatabase) {
+        // Drawing state is created once; onChildDraw runs every frame of a swipe
+        private final Paint backgroundPaint = new Paint();
+        private final Rect backgroundBounds = new Rect();
+        private final Drawable deleteIcon;
+        private final int iconMargin;
+
+        public SwipeToDeleteCallback(NoteAdapter adapter) {
             super(0, ItemTouchHelper.LEFT | ItemTouchHelper.RIGHT);
             this.adapter = adapter;
-            this.noteDatabase = noteDatabase;
+            backgroundPaint.setColor(ContextCompat.getColor(adapter.context, R.color.error));
+            deleteIcon = ContextCompat.getDrawable(adapter.context, R.drawable.ic_delete);
+            iconMargin = Math.round(16 * adapter.context.getResources().getDisplayMetrics().density);
+        }
+
+        @Override
+        public int getSwipeDirs(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+            // Rows are not swiped away while a selection is being made
+            return adapter.isSelectionMode() ? 0 : super.getSwipeDirs(recyclerView, viewHolder);
         }
 
         @Override
@@ -272,68 +518,49 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
 
         @Override
         public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
-            int position = viewHolder.getAdapterPosition();
-            List<Note> notes = adapter.getCurrentNotes();
+            int position = viewHolder.getBindingAdapterPosition();
             
-            if (position >= 0 && position < notes.size()) {
-                Note noteToDelete = notes.get(position);
-                
-                // Delete from database
-                try {
-                    noteDatabase.noteDao().deleteNote(noteToDelete.id);
-                    
-                    // Remove from adapter
-                    notes.remove(position);
-                    adapter.setNotes(notes);
-                    
-                    // Show feedback
-                    android.widget.Toast.makeText(adapter.context, 
-                        "🗑️ Note deleted: " + noteToDelete.title, 
-                        android.widget.Toast.LENGTH_SHORT).show();
-                        
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    android.widget.Toast.makeText(adapter.context, 
-                        "Error deleting note", 
-                        android.widget.Toast.LENGTH_SHORT).show();
+            if (position != RecyclerView.NO_POSITION) {
+                // Remove from adapter right away; the listener deletes it and updates the list's source
+                Note noteToDelete = adapter.removeNoteAt(position);
+                if (adapter.listener != null) {
+                    adapter.listener.onNoteDelete(noteToDelete);
                 }
             }
         }
 
         @Override
         public void onChildDraw(@NonNull Canvas c, @NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder, float dX, float dY, int actionState, boolean isCurrentlyActive) {
-            if (actionState == ItemTouchHelper.ACTION_STATE_SWIPE) {
+            if (actionState == ItemTouchHelper.ACTION_STATE_SWIPE && dX != 0) {
                 View itemView = viewHolder.itemView;
-                
-                // Create background
-                Paint paint = new Paint();
-                paint.setColor(Color.parseColor("#F44336"));
-                
-                // Create delete icon
-                Paint iconPaint = new Paint();
-                iconPaint.setColor(Color.WHITE);
-                iconPaint.setTextSize(50);
-                iconPaint.setTextAlign(Paint.Align.CENTER);
-                
+                int swipe = Math.round(dX);
+
                 // Draw background
-                if (dX > 0) { // Swipe right
-                    c.drawRect(itemView.getLeft(), itemView.getTop(), dX, itemView.getBottom(), paint);
-                    
-                    // Draw delete icon
-                    float iconX = itemView.getLeft() + (dX / 2);
-                    float iconY = itemView.getTop() + (itemView.getHeight() / 2) + 15;
-                    c.drawText("🗑️", iconX, iconY, iconPaint);
-                } else if (dX < 0) { // Swipe left
-                    c.drawRect(itemView.getRight() + dX, itemView.getTop(), itemView.getRight(), itemView.getBottom(), paint);
-                    
-                    // Draw delete icon
-                    float iconX = itemView.getRight() + (dX / 2);
-                    float iconY = itemView.getTop() + (itemView.getHeight() / 2) + 15;
-                    c.drawText("🗑️", iconX, iconY, iconPaint);
+                if (swipe > 0) { // Swipe right
+                    backgroundBounds.set(itemView.getLeft(), itemView.getTop(), itemView.getLeft() + swipe, itemView.getBottom());
+                } else { // Swipe left
+                    backgroundBounds.set(itemView.getRight() + swipe, itemView.getTop(), itemView.getRight(), itemView.getBottom());
+                }
+                c.drawRect(backgroundBounds, backgroundPaint);
+
+                // Draw delete icon, clipped to the revealed background
+                if (deleteIcon != null) {
+                    int iconWidth = deleteIcon.getIntrinsicWidth();
+                    int iconHeight = deleteIcon.getIntrinsicHeight();
+                    int iconTop = itemView.getTop() + (itemView.getHeight() - iconHeight) / 2;
+                    int iconLeft = swipe > 0
+                            ? itemView.getLeft() + iconMargin
+                            : itemView.getRight() - iconMargin - iconWidth;
+                    deleteIcon.setBounds(iconLeft, iconTop, iconLeft + iconWidth, iconTop + iconHeight);
+
+                    int saveCount = c.save();
+                    c.clipRect(backgroundBounds);
+                    deleteIcon.draw(c);
+                    c.restoreToCount(saveCount);
                 }
             }
             
             super.onChildDraw(c, recyclerView, viewHolder, dX, dY, actionState, isCurrentlyActive);
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.app.Application;
+import android.content.Context;
+import androidx.room.Room;
+
+/**
+ * Owns the single NoteDatabase for the whole process. The database is
+ * opened on the repository executor during start-up, so screens that
+ * open later find the connection pool and schema check already done.
+ * Start-up phases are timed by StartupTimeline.
+ */
+public class NoteApplication extends Application {
+    private static final String DATABASE_NAME = "note_db";
+
+    private NoteDatabase noteDatabase;
+    private NoteRepository noteRepository;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTimeline.onApplicationCreate();
+
+        // Building is cheap; Room defers the actual open until first use
+        noteDatabase = Room.databaseBuilder(this, NoteDatabase.class, DATABASE_NAME)
+                .addMigrations(NoteDatabase.ALL_MIGRATIONS)
+                // Only the pre-release version 1 schema has no migration path
+                .fallbackToDestructiveMigrationFrom(1)
+                .build();
+        noteRepository = new NoteRepository(noteDatabase);
+        noteRepository.warmUp();
+
+        // Starts reading the theme preference on the framework's loader thread,
+        // so MainActivity finds it in memory instead of waiting on the disk
+        getSharedPreferences(MainActivity.PREF_NAME, MODE_PRIVATE);
+        StartupTimeline.mark(StartupTimeline.APP_CREATED);
+    }
+
+    public static NoteApplication from(Context context) {
+        return (NoteApplication) context.getApplicationContext();
+    }
+
+    public NoteDatabase getNoteDatabase() {
+        return noteDatabase;
+    }
+
+    public NoteRepository getNoteRepository() {
+        return noteRepository;
+    }
+}
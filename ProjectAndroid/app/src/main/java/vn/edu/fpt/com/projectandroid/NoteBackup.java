@@ -0,0 +1,300 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary backup of the notes table.
+ *
+ * Layout, all numbers big-endian:
+ * <pre>
+ *   header   magic "NBAK" | u16 format version | u16 schema version
+ *   record*  varint length (&gt; 0) | payload
+ *   end      varint 0 | u32 record count | u32 CRC32 of everything before the count
+ * </pre>
+ * A payload is date, reminderTime (varint-encoded longs), a flags byte
+ * (bit 0 = completed, bit 1 = has image path) and the strings title,
+ * content, tag, color, optionally imagePath, then notifyType, each as varint
+ * byte length plus UTF-8. Readers skip fields they do not know and default
+ * fields a shorter payload lacks, so fields can be appended without a new
+ * format version. Ids are not stored; restored notes get fresh ids so a backup
+ * can be merged into a database that already has notes.
+ *
+ * Both directions stream: writing reads the table through a cursor and
+ * reading hands records over in chunks, so memory does not grow with the
+ * size of the backup.
+ */
+public class NoteBackup {
+    private static final int MAGIC = 0x4E42414B; // "NBAK"
+    private static final int FORMAT_VERSION = 1;
+    // Rows per insertAll call; each chunk is one transaction
+    private static final int RESTORE_CHUNK_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Rows come from a cursor, and a row larger than a 2 MB CursorWindow cannot be read,
+    // so no writer produces a bigger record; a larger length means a damaged file
+    private static final int MAX_RECORD_LENGTH = 4 * 1024 * 1024;
+    private static final int FLAG_COMPLETED = 1;
+    private static final int FLAG_HAS_IMAGE = 1 << 1;
+
+    private final ContentResolver contentResolver;
+    private final NoteRepository repository;
+
+    public NoteBackup(Context context, NoteRepository repository) {
+        this.contentResolver = context.getApplicationContext().getContentResolver();
+        this.repository = repository;
+    }
+
+    /**
+     * Writes every note to the document at uri. Delivers the number of notes written.
+     */
+    public void backup(Uri uri, NoteRepository.Callback<Integer> callback) {
+        repository.execute(() -> {
+            try (OutputStream out = contentResolver.openOutputStream(uri, "wt");
+                 Cursor cursor = repository.queryAllNotesCursor()) {
+                if (out == null) {
+                    throw new FileNotFoundException("Cannot open " + uri);
+                }
+                return write(cursor, out);
+            }
+        }, callback);
+    }
+
+    /**
+     * Adds the notes from the backup at uri to the database. The whole file
+     * is verified first, so a truncated or corrupted backup imports nothing.
+     * Delivers the number of notes restored.
+     */
+    public void restore(Uri uri, NoteRepository.Callback<Integer> callback) {
+        repository.execute(() -> {
+            try (InputStream in = contentResolver.openInputStream(uri)) {
+                read(requireStream(in, uri), null);
+            }
+            try (InputStream in = contentResolver.openInputStream(uri)) {
+                return read(requireStream(in, uri), repository::insertAll);
+            }
+        }, callback);
+    }
+
+    interface ChunkConsumer {
+        void accept(List<Note> chunk);
+    }
+
+    static int write(Cursor cursor, OutputStream target) throws IOException {
+        CRC32 crc = new CRC32();
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(target, BUFFER_SIZE), crc);
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeShort(NoteDatabase.VERSION);
+
+        int title = cursor.getColumnIndexOrThrow("title");
+        int content = cursor.getColumnIndexOrThrow("content");
+        int date = cursor.getColumnIndexOrThrow("date");
+        int tag = cursor.getColumnIndexOrThrow("tag");
+        int color = cursor.getColumnIndexOrThrow("color");
+        int isCompleted = cursor.getColumnIndexOrThrow("isCompleted");
+        int imagePath = cursor.getColumnIndexOrThrow("imagePath");
+        int reminderTime = cursor.getColumnIndexOrThrow("reminderTime");
+        int notifyType = cursor.getColumnIndexOrThrow("notifyType");
+
+        // One payload buffer is reused for every record
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(256);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        int count = 0;
+        while (cursor.moveToNext()) {
+            payloadBytes.reset();
+            writeVarLong(payload, cursor.getLong(date));
+            writeVarLong(payload, cursor.getLong(reminderTime));
+            String image = cursor.getString(imagePath);
+            boolean hasImage = image != null && !image.isEmpty();
+            int flags = (cursor.getInt(isCompleted) != 0 ? FLAG_COMPLETED : 0) | (hasImage ? FLAG_HAS_IMAGE : 0);
+            payload.writeByte(flags);
+            writeString(payload, cursor.getString(title));
+            writeString(payload, cursor.getString(content));
+            writeString(payload, cursor.getString(tag));
+            writeString(payload, cursor.getString(color));
+            if (hasImage) {
+                writeString(payload, image);
+            }
+            writeString(payload, cursor.getString(notifyType));
+
+            writeVarLong(out, payloadBytes.size());
+            payloadBytes.writeTo(out);
+            count++;
+        }
+
+        writeVarLong(out, 0);
+        out.flush();
+        long checksum = crc.getValue();
+        out.writeInt(count);
+        out.writeInt((int) checksum);
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Reads a backup, handing notes to consumer in chunks of RESTORE_CHUNK_SIZE.
+     * With a null consumer the file is only validated. Returns the record count.
+     */
+    static int read(InputStream source, ChunkConsumer consumer) throws IOException {
+        CRC32 crc = new CRC32();
+        // DataInputStream does not read ahead, so the CRC covers exactly the bytes consumed
+        DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(source, BUFFER_SIZE), crc));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a notes backup");
+            }
+            int formatVersion = in.readUnsignedShort();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported backup version " + formatVersion);
+            }
+            // Schema version of the writer; format version 1 is readable from any of them
+            in.readUnsignedShort();
+
+            List<Note> chunk = new ArrayList<>(consumer != null ? RESTORE_CHUNK_SIZE : 0);
+            // Records are parsed from one reusable buffer; fields a newer writer appends are skipped
+            byte[] buffer = new byte[256];
+            PayloadStream payloadStream = new PayloadStream();
+            DataInputStream payload = new DataInputStream(payloadStream);
+            int count = 0;
+            long length;
+            while ((length = readVarLong(in)) != 0) {
+                if (length < 0 || length > MAX_RECORD_LENGTH) {
+                    throw new IOException("Backup is corrupted (record length " + length + ")");
+                }
+                if (length > buffer.length) {
+                    buffer = new byte[(int) Math.min(Math.max(length, buffer.length * 2L), MAX_RECORD_LENGTH)];
+                }
+                in.readFully(buffer, 0, (int) length);
+                payloadStream.reset(buffer, (int) length);
+                Note note = readNote(payload, payloadStream);
+                count++;
+                if (consumer != null) {
+                    chunk.add(note);
+                    if (chunk.size() == RESTORE_CHUNK_SIZE) {
+                        consumer.accept(chunk);
+                        chunk = new ArrayList<>(RESTORE_CHUNK_SIZE);
+                    }
+                }
+            }
+
+            long checksum = crc.getValue();
+            int expectedCount = in.readInt();
+            int expectedChecksum = in.readInt();
+            if (expectedCount != count || expectedChecksum != (int) checksum) {
+                throw new IOException("Backup is corrupted (checksum mismatch)");
+            }
+            if (consumer != null && !chunk.isEmpty()) {
+                consumer.accept(chunk);
+            }
+            return count;
+        } catch (EOFException e) {
+            throw new IOException("Backup is truncated", e);
+        }
+    }
+
+    private static Note readNote(DataInputStream in, PayloadStream payloadStream) throws IOException {
+        Note note = new Note();
+        note.date = readVarLong(in);
+        note.reminderTime = readVarLong(in);
+        int flags = in.readUnsignedByte();
+        note.isCompleted = (flags & FLAG_COMPLETED) != 0;
+        note.title = readString(in);
+        note.content = readString(in);
+        note.tag = readString(in);
+        note.color = readString(in);
+        note.imagePath = (flags & FLAG_HAS_IMAGE) != 0 ? readString(in) : "";
+        // Appended after the first release of the format
+        if (payloadStream.available() > 0) {
+            String notifyType = readString(in);
+            note.notifyType = notifyType.isEmpty() ? "Default" : notifyType;
+        }
+        return note;
+    }
+
+    private static final class PayloadStream extends ByteArrayInputStream {
+        PayloadStream() {
+            super(new byte[0]);
+        }
+
+        void reset(byte[] bytes, int length) {
+            buf = bytes;
+            pos = 0;
+            mark = 0;
+            count = length;
+        }
+    }
+
+    private static InputStream requireStream(InputStream in, Uri uri) throws FileNotFoundException {
+        if (in == null) {
+            throw new FileNotFoundException("Cannot open " + uri);
+        }
+        return in;
+    }
+
+    // Null is stored as length 0, the same as an empty string; no column relies on null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    // in reads one payload, so available() is exactly what is left of the record
+    private static String readString(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return "";
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Backup is corrupted (string length " + length + ")");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Unsigned LEB128; dates and small lengths take far fewer than 8 bytes
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt varint");
+    }
+}
@@ -1,12 +1,17 @@
 package vn.edu.fpt.com.projectandroid;
 
+import android.database.Cursor;
 import androidx.room.*;
 import java.util.List;
 
 @Dao
 public interface NoteDao {
     @Insert
-    void insert(Note note);
+    long insert(Note note);
+
+    // Room runs the whole list in one transaction with a single prepared statement
+    @Insert
+    void insertAll(List<Note> notes);
 
     @Update
     void update(Note note);
@@ -20,11 +25,99 @@ public interface NoteDao {
     @Query("DELETE FROM notes WHERE id = :noteId")
     void deleteNote(int noteId);
 
+    // Set-based writes for multi-select. SQLite before 3.32 binds at most 999 variables,
+    // so NoteRepository passes ids in chunks inside one transaction.
+    @Query("DELETE FROM notes WHERE id IN (:ids)")
+    int deleteNotes(List<Integer> ids);
+
+    @Query("UPDATE notes SET isCompleted = :isCompleted WHERE id IN (:ids)")
+    int updateNotesStatus(List<Integer> ids, boolean isCompleted);
+
+    @Query("UPDATE notes SET tag = :tag WHERE id IN (:ids)")
+    int updateNotesTag(List<Integer> ids, String tag);
+
+    @Query("UPDATE notes SET color = :color WHERE id IN (:ids)")
+    int updateNotesColor(List<Integer> ids, String color);
+
+    // Attachment files of notes about to be deleted
+    @Query("SELECT imagePath FROM notes WHERE id IN (:ids) AND imagePath != ''")
+    List<String> getImagePaths(List<Integer> ids);
+
+    // Attachment files some note still points at, served by index_notes_imagePath
+    @Query("SELECT DISTINCT imagePath FROM notes WHERE imagePath IN (:paths)")
+    List<String> getReferencedImagePaths(List<String> paths);
+
+    @Query("SELECT * FROM notes WHERE id IN (:ids)")
+    List<Note> getNotesByIds(List<Integer> ids);
+
     @Query("SELECT * FROM notes ORDER BY date DESC")
     List<Note> getAllNotes();
 
+    @Query("SELECT COUNT(*) FROM notes")
+    int countNotes();
+
+    // Streaming export; rows are read through the cursor window instead of being materialized as a List
+    @Query("SELECT * FROM notes ORDER BY date DESC, id DESC")
+    Cursor getAllNotesCursor();
+
     @Query("SELECT * FROM notes WHERE id = :id")
     Note getNoteById(int id);
 
-    // Search and filter queries can be added later
+    // Filter queries; tag lookups and ordering are served by index_notes_tag_date / index_notes_date
+    @Query("SELECT * FROM notes WHERE tag = :tag ORDER BY date DESC")
+    List<Note> getNotesByTag(String tag);
+
+    // Keyset pages ordered by (date, id) newest first. The date indexes carry the rowid,
+    // so both the range and the ORDER BY are answered from the index without a sort.
+    @Query("SELECT * FROM notes ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Note> getFirstPage(int limit);
+
+    // Rows strictly after (date, id) in list order
+    @Query("SELECT * FROM notes WHERE date <= :date AND (date < :date OR id < :id) "
+            + "ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Note> getPageAfter(long date, int id, int limit);
+
+    // Rows strictly before (date, id) in list order, returned oldest first
+    @Query("SELECT * FROM notes WHERE date >= :date AND (date > :date OR id > :id) "
+            + "ORDER BY date ASC, id ASC LIMIT :limit")
+    List<Note> getPageBefore(long date, int id, int limit);
+
+    @Query("SELECT * FROM notes WHERE tag = :tag ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Note> getFirstPageByTag(String tag, int limit);
+
+    @Query("SELECT * FROM notes WHERE tag = :tag AND date <= :date AND (date < :date OR id < :id) "
+            + "ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Note> getPageAfterByTag(String tag, long date, int id, int limit);
+
+    @Query("SELECT * FROM notes WHERE tag = :tag AND date >= :date AND (date > :date OR id > :id) "
+            + "ORDER BY date ASC, id ASC LIMIT :limit")
+    List<Note> getPageBeforeByTag(String tag, long date, int id, int limit);
+
+    // Reminder scheduling; both are range scans on index_notes_reminderTime
+    @Query("SELECT * FROM notes WHERE reminderTime > :after AND reminderTime <= :until ORDER BY reminderTime")
+    List<Note> getDueReminders(long after, long until);
+
+    @Query("SELECT * FROM notes WHERE reminderTime > :after ORDER BY reminderTime LIMIT 1")
+    Note getNextReminder(long after);
+
+    // Full-text search; :query is an FTS4 MATCH expression built by NoteMatcher.toFtsQuery.
+    // Snippets mark hits with char(2)/char(3), see NoteSearchResult. At most :limit matches
+    // are returned, newest first; walking the FTS rowids backwards needs no sort.
+    @Query("SELECT notes.*, "
+            + "snippet(notes_fts, char(2), char(3), '…', -1, 12) AS snippet, "
+            + "matchinfo(notes_fts, 'pcx') AS matchInfo "
+            + "FROM notes_fts JOIN notes ON notes.id = notes_fts.rowid "
+            + "WHERE notes_fts MATCH :query "
+            + "ORDER BY notes_fts.rowid DESC LIMIT :limit")
+    List<NoteSearchResult> searchNotes(String query, int limit);
+
+    // CROSS JOIN keeps notes_fts as the outer loop; otherwise SQLite walks the tag index
+    // and runs the MATCH once per note with that tag
+    @Query("SELECT notes.*, "
+            + "snippet(notes_fts, char(2), char(3), '…', -1, 12) AS snippet, "
+            + "matchinfo(notes_fts, 'pcx') AS matchInfo "
+            + "FROM notes_fts CROSS JOIN notes ON notes.id = notes_fts.rowid "
+            + "WHERE notes_fts MATCH :query AND notes.tag = :tag "
+            + "ORDER BY notes_fts.rowid DESC LIMIT :limit")
+    List<NoteSearchResult> searchNotesByTag(String tag, String query, int limit);
 } 
\ No newline at end of file
@@ -1,9 +1,104 @@
 package vn.edu.fpt.com.projectandroid;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
-@Database(entities = {Note.class}, version = 2, exportSchema = false)
+@Database(entities = {Note.class, NoteFts.class}, version = NoteDatabase.VERSION, exportSchema = false)
 public abstract class NoteDatabase extends RoomDatabase {
+    // Also stamped into backups by NoteBackup
+    public static final int VERSION = 7;
+
     public abstract NoteDao noteDao();
-} 
\ No newline at end of file
+
+    // Version 3 adds the indexes used by the tag filter and date ordering
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_date` ON `notes` (`date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_tag_date` ON `notes` (`tag`, `date`)");
+        }
+    };
+
+    // Version 4 adds the notes_fts full-text table, its sync triggers, and indexes existing rows
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `notes_fts` USING FTS4("
+                    + "`title` TEXT, `content` TEXT, `tag` TEXT, tokenize=unicode61, content=`notes`)");
+            createFtsTriggers(db);
+            db.execSQL("INSERT INTO `notes_fts`(`notes_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    /**
+     * Version 5 stores date and reminderTime as INTEGER epoch millis and drops
+     * the duplicated reminderDate text. SQLite has no ALTER COLUMN, so the
+     * table is rebuilt; rows are converted by one INSERT ... SELECT inside the
+     * migration transaction. Old dates were formatted in local time, hence the
+     * 'utc' modifier.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `notes_new` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`title` TEXT NOT NULL, `content` TEXT, `date` INTEGER NOT NULL, "
+                    + "`tag` TEXT, `color` TEXT, `isCompleted` INTEGER NOT NULL, "
+                    + "`imagePath` TEXT, `reminderTime` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO `notes_new` "
+                    + "(`id`, `title`, `content`, `date`, `tag`, `color`, `isCompleted`, `imagePath`, `reminderTime`) "
+                    + "SELECT `id`, `title`, `content`, "
+                    + "COALESCE(CAST(strftime('%s', `date`, 'utc') AS INTEGER) * 1000, 0), "
+                    + "`tag`, `color`, `isCompleted`, `imagePath`, "
+                    + "CASE WHEN `reminderTime` IS NULL OR `reminderTime` = '' THEN 0 "
+                    + "WHEN `reminderTime` NOT GLOB '*[^0-9]*' THEN CAST(`reminderTime` AS INTEGER) "
+                    + "ELSE COALESCE(CAST(strftime('%s', `reminderTime`, 'utc') AS INTEGER) * 1000, 0) END "
+                    + "FROM `notes`");
+            // Dropping the old table also drops its FTS sync triggers
+            db.execSQL("DROP TABLE `notes`");
+            db.execSQL("ALTER TABLE `notes_new` RENAME TO `notes`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_date` ON `notes` (`date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_tag_date` ON `notes` (`tag`, `date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_reminderTime` ON `notes` (`reminderTime`)");
+            createFtsTriggers(db);
+            db.execSQL("INSERT INTO `notes_fts`(`notes_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    // Version 6 stores the notification type, which the reminder scheduler reads back
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Existing rows keep NULL, read as "Default"; an UPDATE here would re-index every row in notes_fts
+            db.execSQL("ALTER TABLE `notes` ADD COLUMN `notifyType` TEXT");
+        }
+    };
+
+    // Version 7 indexes imagePath; restored backups can point several notes at one attachment
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_imagePath` ON `notes` (`imagePath`)");
+        }
+    };
+
+    public static final Migration[] ALL_MIGRATIONS = {MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6,
+            MIGRATION_6_7};
+
+    // Same triggers Room generates for NoteFts, needed whenever notes is created by a migration
+    private static void createFtsTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_BEFORE_UPDATE "
+                + "BEFORE UPDATE ON `notes` BEGIN DELETE FROM `notes_fts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_BEFORE_DELETE "
+                + "BEFORE DELETE ON `notes` BEGIN DELETE FROM `notes_fts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_AFTER_UPDATE "
+                + "AFTER UPDATE ON `notes` BEGIN INSERT INTO `notes_fts`(`docid`, `title`, `content`, `tag`) "
+                + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`, NEW.`tag`); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_AFTER_INSERT "
+                + "AFTER INSERT ON `notes` BEGIN INSERT INTO `notes_fts`(`docid`, `title`, `content`, `tag`) "
+                + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`, NEW.`tag`); END");
+    }
+}
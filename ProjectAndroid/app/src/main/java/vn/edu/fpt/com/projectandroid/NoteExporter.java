@@ -0,0 +1,263 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.core.content.FileProvider;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Writes notes to a file in the cache directory and hands back a content://
+ * URI for sharing. The full collection is streamed from a cursor one row at
+ * a time, so memory use does not grow with the number of notes and nothing
+ * large ever goes through an Intent extra.
+ *
+ * Public methods must be called on the main thread; the listener is called
+ * on the main thread too.
+ */
+public class NoteExporter {
+    private static final String TAG = "NoteExporter";
+    private static final String EXPORT_DIR = "exports";
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // Progress is posted at most every PROGRESS_STEP rows to keep the main queue quiet
+    private static final int PROGRESS_STEP = 100;
+
+    public enum Format {
+        TEXT("txt", "text/plain"),
+        HTML("html", "text/html"),
+        JSON("json", "application/json");
+
+        final String extension;
+        public final String mimeType;
+
+        Format(String extension, String mimeType) {
+            this.extension = extension;
+            this.mimeType = mimeType;
+        }
+    }
+
+    public interface Listener {
+        void onProgress(int written, int total);
+
+        void onExported(Uri uri, Format format, int count);
+
+        void onError(Exception e);
+    }
+
+    private final Context context;
+    private final NoteRepository repository;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // Bumped on every export and on cancel; a running export stops when it no longer matches
+    private volatile int generation = 0;
+    private Future<?> inFlight;
+
+    public NoteExporter(Context context, NoteRepository repository) {
+        this.context = context.getApplicationContext();
+        this.repository = repository;
+    }
+
+    /**
+     * Exports every note, newest first, straight from the database.
+     */
+    public void exportAll(Format format, String title, Listener listener) {
+        start(format, title, null, null, listener);
+    }
+
+    /**
+     * Exports notes that are already in memory, e.g. the rows currently shown.
+     * headerLines are extra lines printed under the title (search, filter...).
+     */
+    public void exportNotes(List<Note> notes, Format format, String title, List<String> headerLines,
+                            Listener listener) {
+        start(format, title, headerLines, notes, listener);
+    }
+
+    /**
+     * Stops a running export; its partial file is deleted and nothing more is delivered.
+     */
+    public void cancel() {
+        generation++;
+        if (inFlight != null) {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+    }
+
+    private void start(Format format, String title, List<String> headerLines, List<Note> notes,
+                       Listener listener) {
+        cancel();
+        final int exportGeneration = ++generation;
+        inFlight = repository.execute(() -> {
+            long traceStart = NoteTrace.begin(NoteTrace.EXPORT);
+            File file = newExportFile(format);
+            int count;
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                NoteWriter writer = newWriter(format, out);
+                count = notes != null
+                        ? writeList(writer, notes, title, headerLines, exportGeneration, listener)
+                        : writeCursor(writer, title, exportGeneration, listener);
+            } catch (IOException | RuntimeException e) {
+                file.delete();
+                throw e;
+            } finally {
+                NoteTrace.end(NoteTrace.EXPORT, traceStart);
+            }
+            if (count < 0) {
+                // Cancelled half way
+                file.delete();
+                return null;
+            }
+            NoteTrace.count(NoteTrace.EXPORT_ROWS, count);
+            Uri uri = FileProvider.getUriForFile(context, context.getPackageName() + ".fileprovider", file);
+            return new Result(uri, count);
+        }, new NoteRepository.Callback<Result>() {
+            @Override
+            public void onResult(Result result) {
+                if (result == null || exportGeneration != generation) {
+                    return;
+                }
+                inFlight = null;
+                listener.onExported(result.uri, format, result.count);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Export failed: " + e.getMessage(), e);
+                if (exportGeneration == generation) {
+                    inFlight = null;
+                    listener.onError(e);
+                }
+            }
+        });
+    }
+
+    // Returns the number of rows written, or -1 if the export was cancelled
+    private int writeCursor(NoteWriter writer, String title, int exportGeneration, Listener listener)
+            throws IOException {
+        int total = repository.countNotes();
+        writer.begin(title, null, total);
+        int written = 0;
+        try (Cursor cursor = repository.queryAllNotesCursor()) {
+            NoteCursorReader reader = new NoteCursorReader(cursor);
+            // One Note is reused for every row; only the current row is ever held
+            Note note = new Note();
+            while (cursor.moveToNext()) {
+                if (exportGeneration != generation) {
+                    return -1;
+                }
+                reader.read(note);
+                writer.note(++written, note);
+                postProgress(written, total, exportGeneration, listener);
+            }
+        }
+        writer.end(written);
+        return written;
+    }
+
+    private int writeList(NoteWriter writer, List<Note> notes, String title, List<String> headerLines,
+                          int exportGeneration, Listener listener) throws IOException {
+        int total = notes.size();
+        writer.begin(title, headerLines, total);
+        int written = 0;
+        for (Note note : notes) {
+            if (exportGeneration != generation) {
+                return -1;
+            }
+            writer.note(++written, note);
+            postProgress(written, total, exportGeneration, listener);
+        }
+        writer.end(written);
+        return written;
+    }
+
+    private void postProgress(int written, int total, int exportGeneration, Listener listener) {
+        if (written % PROGRESS_STEP != 0 && written != total) {
+            return;
+        }
+        handler.post(() -> {
+            if (exportGeneration == generation) {
+                listener.onProgress(written, total);
+            }
+        });
+    }
+
+    private File newExportFile(Format format) throws IOException {
+        File dir = new File(context.getCacheDir(), EXPORT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        // Only the latest export is kept around
+        File[] old = dir.listFiles();
+        if (old != null) {
+            for (File file : old) {
+                file.delete();
+            }
+        }
+        return new File(dir, "notes_" + System.currentTimeMillis() + "." + format.extension);
+    }
+
+    private static NoteWriter newWriter(Format format, Writer out) {
+        switch (format) {
+            case HTML:
+                return new NoteWriter.HtmlWriter(out);
+            case JSON:
+                return new NoteWriter.JsonWriter(out);
+            default:
+                return new NoteWriter.TextWriter(out);
+        }
+    }
+
+    private static final class Result {
+        final Uri uri;
+        final int count;
+
+        Result(Uri uri, int count) {
+            this.uri = uri;
+            this.count = count;
+        }
+    }
+
+    // Column indexes are looked up once per export, not once per row
+    private static final class NoteCursorReader {
+        private final Cursor cursor;
+        private final int id, title, content, date, tag, color, isCompleted, imagePath, reminderTime;
+
+        NoteCursorReader(Cursor cursor) {
+            this.cursor = cursor;
+            id = cursor.getColumnIndexOrThrow("id");
+            title = cursor.getColumnIndexOrThrow("title");
+            content = cursor.getColumnIndexOrThrow("content");
+            date = cursor.getColumnIndexOrThrow("date");
+            tag = cursor.getColumnIndexOrThrow("tag");
+            color = cursor.getColumnIndexOrThrow("color");
+            isCompleted = cursor.getColumnIndexOrThrow("isCompleted");
+            imagePath = cursor.getColumnIndexOrThrow("imagePath");
+            reminderTime = cursor.getColumnIndexOrThrow("reminderTime");
+        }
+
+        void read(Note note) {
+            note.id = cursor.getInt(id);
+            note.title = cursor.getString(title);
+            note.content = cursor.getString(content);
+            note.date = cursor.getLong(date);
+            note.tag = cursor.getString(tag);
+            note.color = cursor.getString(color);
+            note.isCompleted = cursor.getInt(isCompleted) != 0;
+            note.imagePath = cursor.getString(imagePath);
+            note.reminderTime = cursor.getLong(reminderTime);
+        }
+    }
+}
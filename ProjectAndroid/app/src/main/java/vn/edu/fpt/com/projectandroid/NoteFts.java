@@ -0,0 +1,18 @@
+package vn.edu.fpt.com.projectandroid;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Full-text shadow table over notes. Room keeps it in sync with the
+ * notes table through triggers, so inserts, updates and deletes need
+ * no extra work from NoteDao callers.
+ */
+@Fts4(contentEntity = Note.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "notes_fts")
+public class NoteFts {
+    public String title;
+    public String content;
+    public String tag;
+}
@@ -0,0 +1,45 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Glide configuration. The images Glide decodes are note thumbnails and the
+ * editor preview, so the bitmap memory is capped well below the defaults
+ * and the disk cache holds the view-sized results NoteImages asks for.
+ */
+@GlideModule
+public final class NoteGlideModule extends AppGlideModule {
+    private static final String DISK_CACHE_NAME = "note_thumbnails";
+    private static final long DISK_CACHE_BYTES = 32L * 1024 * 1024;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        // A screen's worth of each, and never more than a fifth of the app's memory class
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(1)
+                .setBitmapPoolScreens(1)
+                .setMaxSizeMultiplier(0.2f)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_NAME, DISK_CACHE_BYTES));
+        // Photos have no alpha; 2 bytes per pixel instead of 4
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+    }
+
+    // No Glide modules are declared in the manifest
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,235 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.widget.ImageView;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * Note image attachments. A picked image is copied into app storage,
+ * downscaled to FULL_EDGE, and a THUMB_EDGE rendition is written next to it
+ * in thumbs/, so list rows never decode the photo itself. CaptureActivity
+ * has CameraX write into newImageFile and then adds the rendition. The note
+ * row only stores the path. Everything here touches the disk and runs off
+ * the main thread.
+ */
+final class NoteImages {
+    private static final String DIRECTORY = "attachments";
+    private static final String THUMB_DIRECTORY = "thumbs";
+    // Long edge in px of the stored image and of its list rendition
+    // (56dp thumbnails are 224px at xxxhdpi)
+    private static final int FULL_EDGE = 2048;
+    private static final int THUMB_EDGE = 256;
+
+    private NoteImages() {
+    }
+
+    /**
+     * Copies the image behind uri into app storage together with its
+     * thumbnail rendition and returns the path to store in Note.imagePath.
+     */
+    static String importImage(Context context, Uri uri) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not a supported image");
+        }
+        int rotation;
+        try (InputStream in = open(resolver, uri)) {
+            rotation = readRotation(in);
+        }
+
+        // Power-of-two subsampling in the decoder, then an exact scale below
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize(options, FULL_EDGE);
+        Bitmap decoded;
+        try (InputStream in = open(resolver, uri)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Could not decode image");
+        }
+
+        File image = newImageFile(context);
+        Bitmap full = scale(decoded, FULL_EDGE, rotation);
+        Bitmap thumb = null;
+        try {
+            write(full, image, 90);
+            thumb = scale(full, THUMB_EDGE, 0);
+            write(thumb, thumbnailFile(image.getPath()), 80);
+        } catch (IOException e) {
+            delete(image.getPath());
+            throw e;
+        } finally {
+            if (thumb != null && thumb != full) {
+                thumb.recycle();
+            }
+            if (full != decoded) {
+                full.recycle();
+            }
+            decoded.recycle();
+        }
+        return image.getAbsolutePath();
+    }
+
+    // A new, not yet existing file in attachment storage
+    static File newImageFile(Context context) throws IOException {
+        File directory = new File(context.getFilesDir(), DIRECTORY);
+        File thumbDirectory = new File(directory, THUMB_DIRECTORY);
+        if (!thumbDirectory.isDirectory() && !thumbDirectory.mkdirs()) {
+            throw new IOException("Could not create " + thumbDirectory);
+        }
+        return new File(directory, UUID.randomUUID() + ".jpg");
+    }
+
+    /**
+     * Writes the list rendition of an image already in attachment storage,
+     * e.g. a camera capture, decoding no more pixels than the rendition needs.
+     */
+    static void writeThumbnail(File image) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(image.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not a supported image");
+        }
+        int rotation;
+        try (InputStream in = new FileInputStream(image)) {
+            rotation = readRotation(in);
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize(options, THUMB_EDGE);
+        Bitmap decoded = BitmapFactory.decodeFile(image.getPath(), options);
+        if (decoded == null) {
+            throw new IOException("Could not decode image");
+        }
+        Bitmap thumb = scale(decoded, THUMB_EDGE, rotation);
+        try {
+            write(thumb, thumbnailFile(image.getPath()), 80);
+        } finally {
+            if (thumb != decoded) {
+                thumb.recycle();
+            }
+            decoded.recycle();
+        }
+    }
+
+    static File thumbnailFile(String imagePath) {
+        File image = new File(imagePath);
+        return new File(new File(image.getParentFile(), THUMB_DIRECTORY), image.getName());
+    }
+
+    /**
+     * Removes an attachment and its rendition. Paths outside the attachment
+     * directory, e.g. restored from another install, are left alone.
+     */
+    static void delete(String imagePath) {
+        if (imagePath == null || imagePath.isEmpty()) {
+            return;
+        }
+        File image = new File(imagePath);
+        File parent = image.getParentFile();
+        if (parent == null || !DIRECTORY.equals(parent.getName())) {
+            return;
+        }
+        thumbnailFile(imagePath).delete();
+        image.delete();
+    }
+
+    /**
+     * Loads the thumbnail rendition into a list row, decoded at exactly
+     * size x size. The decoded result is what goes to Glide's disk cache,
+     * so a row scrolled back into view skips decoding and cropping.
+     */
+    static void loadThumbnail(RequestManager glide, ImageView view, String imagePath, int size) {
+        glide.load(thumbnailFile(imagePath))
+                .override(size)
+                .centerCrop()
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                .placeholder(R.drawable.photo_placeholder)
+                // Attachments without a rendition fall back to the image itself
+                .error(glide.load(new File(imagePath))
+                        .override(size)
+                        .centerCrop()
+                        .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                        .error(R.drawable.photo_placeholder))
+                .into(view);
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws FileNotFoundException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        return in;
+    }
+
+    // Largest power of two that keeps the decoded long edge at or above maxEdge
+    private static int sampleSize(BitmapFactory.Options bounds, int maxEdge) {
+        int sampleSize = 1;
+        int longEdge = Math.max(bounds.outWidth, bounds.outHeight);
+        while (longEdge / (sampleSize * 2) >= maxEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // Camera photos are stored sideways with an EXIF hint; the copies are written upright
+    private static int readRotation(InputStream in) {
+        try {
+            switch (new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Returns source itself when it is already small enough and upright
+    private static Bitmap scale(Bitmap source, int maxEdge, int rotation) {
+        int longEdge = Math.max(source.getWidth(), source.getHeight());
+        float factor = longEdge > maxEdge ? (float) maxEdge / longEdge : 1f;
+        if (factor == 1f && rotation == 0) {
+            return source;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postScale(factor, factor);
+        matrix.postRotate(rotation);
+        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+    }
+
+    private static void write(Bitmap bitmap, File file, int quality) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out)) {
+                throw new IOException("Could not write " + file);
+            }
+        }
+    }
+}
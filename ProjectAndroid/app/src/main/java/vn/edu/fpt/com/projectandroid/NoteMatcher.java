@@ -0,0 +1,324 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Keyword and tag matching, relevance and snippets shared by the database
+ * search and the in-memory narrowing in NoteSearchPipeline. Plain Java with
+ * no Android dependencies, so the benchmark module compiles it as is.
+ */
+final class NoteMatcher {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{Mn}+");
+    // Column weights in notes_fts order: title, content, tag
+    private static final double[] COLUMN_WEIGHTS = {3.0, 1.0, 2.0};
+    // Same markers and length as the snippet() call in NoteDao.searchNotes
+    private static final char HIGHLIGHT_START = '\u0002';
+    private static final char HIGHLIGHT_END = '\u0003';
+    private static final String ELLIPSIS = "…";
+    private static final int SNIPPET_TOKENS = 12;
+
+    private NoteMatcher() {
+    }
+
+    /**
+     * Turns free text into an FTS4 query where every word is a prefix term,
+     * e.g. "meet to" becomes "meet* to*". Operators and quotes are dropped.
+     */
+    static String toFtsQuery(String keyword) {
+        if (keyword == null) {
+            return "";
+        }
+        StringBuilder query = new StringBuilder();
+        int i = 0;
+        int length = keyword.length();
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(keyword.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(keyword.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append(keyword, start, i).append('*');
+            }
+        }
+        return query.toString();
+    }
+
+    /**
+     * Keeps the notes with the given tag (null for every tag) where every
+     * word of the keyword prefixes some word of the title, content or tag,
+     * which is the same rule the FTS query applies. The order is kept.
+     */
+    static List<Note> filter(List<Note> notes, String tag, String keyword) {
+        List<String> terms = terms(keyword);
+        List<Note> filtered = new ArrayList<>();
+        for (Note note : notes) {
+            if (tag != null && !tag.equals(note.tag)) {
+                continue;
+            }
+            if (terms.isEmpty() || matchesAll(note, terms)) {
+                filtered.add(note);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Orders rows that all matched the same query, given their hits as
+     * hits[row][phrase][column]: a row scores, for every phrase and column,
+     * its share of the hits among these rows, weighted by column. Returns
+     * row indexes, highest score first and most recently created first on
+     * ties. FTS results (hits from matchinfo) and narrowed results (hits
+     * counted by rank) both go through here, so the same rows come out in
+     * the same order either way.
+     */
+    static int[] relevanceOrder(int[][][] hits, int[] ids) {
+        int size = hits.length;
+        // Every row of one query has the same phrases and columns
+        int phrases = size > 0 ? hits[0].length : 0;
+        int columns = phrases > 0 ? hits[0][0].length : 0;
+        double[][] totals = new double[phrases][columns];
+        for (int[][] rowHits : hits) {
+            for (int phrase = 0; phrase < phrases; phrase++) {
+                for (int column = 0; column < columns; column++) {
+                    totals[phrase][column] += rowHits[phrase][column];
+                }
+            }
+        }
+        double[] scores = new double[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            for (int phrase = 0; phrase < phrases; phrase++) {
+                for (int column = 0; column < columns; column++) {
+                    int rowHits = hits[i][phrase][column];
+                    if (rowHits > 0) {
+                        double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+                        scores[i] += weight * rowHits / totals[phrase][column];
+                    }
+                }
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Integer.compare(ids[b], ids[a]);
+        });
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /**
+     * Ranks rows narrowed in memory as a fresh FTS query for keyword would:
+     * the same order (see relevanceOrder) and a highlighted snippet of the
+     * column with the most matched terms. Returns copies, since the given
+     * notes may still be on screen.
+     */
+    static List<Note> rank(List<Note> notes, String keyword) {
+        List<String> terms = terms(keyword);
+        int size = notes.size();
+        int[][][] hits = new int[size][][];
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            Note note = notes.get(i);
+            hits[i] = countHits(note, terms);
+            ids[i] = note.id;
+        }
+        List<Note> ranked = new ArrayList<>(size);
+        for (int index : relevanceOrder(hits, ids)) {
+            Note note = notes.get(index);
+            Note copy = copyOf(note);
+            copy.searchSnippet = snippet(note, terms, hits[index]);
+            ranked.add(copy);
+        }
+        return ranked;
+    }
+
+    // Normalized search words of keyword, without the FTS prefix marker
+    private static List<String> terms(String keyword) {
+        List<String> terms = new ArrayList<>();
+        String ftsQuery = toFtsQuery(keyword);
+        if (!ftsQuery.isEmpty()) {
+            for (String term : ftsQuery.split(" ")) {
+                terms.add(normalize(term.substring(0, term.length() - 1)));
+            }
+        }
+        return terms;
+    }
+
+    private static String[] columns(Note note) {
+        return new String[] {note.title, note.content, note.tag};
+    }
+
+    // Words of each column starting with each term, which is what FTS counts for a prefix query
+    private static int[][] countHits(Note note, List<String> terms) {
+        String[] columns = columns(note);
+        int[][] hits = new int[terms.size()][columns.length];
+        for (int column = 0; column < columns.length; column++) {
+            String text = normalize(columns[column]);
+            for (int phrase = 0; phrase < terms.size(); phrase++) {
+                hits[phrase][column] = countWordsWithPrefix(text, terms.get(phrase));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Up to SNIPPET_TOKENS words of the column that matched the most terms,
+     * starting at its first hit, with every hit between the highlight markers.
+     */
+    private static String snippet(Note note, List<String> terms, int[][] hits) {
+        String[] columns = columns(note);
+        int best = 0;
+        int bestMatched = -1;
+        for (int column = 0; column < columns.length; column++) {
+            int matched = 0;
+            for (int[] phraseHits : hits) {
+                if (phraseHits[column] > 0) {
+                    matched++;
+                }
+            }
+            if (matched > bestMatched) {
+                best = column;
+                bestMatched = matched;
+            }
+        }
+        String text = columns[best] != null ? columns[best] : "";
+
+        // Word spans as [start, end) pairs
+        List<int[]> words = new ArrayList<>();
+        int firstHit = -1;
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                words.add(new int[] {start, i});
+                if (firstHit < 0 && isHit(text.substring(start, i), terms)) {
+                    firstHit = words.size() - 1;
+                }
+            }
+        }
+        if (words.isEmpty()) {
+            return text;
+        }
+        int from = Math.max(0, Math.min(firstHit, words.size() - SNIPPET_TOKENS));
+        int to = Math.min(words.size(), from + SNIPPET_TOKENS);
+
+        StringBuilder snippet = new StringBuilder();
+        if (from > 0) {
+            snippet.append(ELLIPSIS);
+        }
+        int position = words.get(from)[0];
+        for (int w = from; w < to; w++) {
+            int[] word = words.get(w);
+            snippet.append(text, position, word[0]);
+            String token = text.substring(word[0], word[1]);
+            if (isHit(token, terms)) {
+                snippet.append(HIGHLIGHT_START).append(token).append(HIGHLIGHT_END);
+            } else {
+                snippet.append(token);
+            }
+            position = word[1];
+        }
+        if (to < words.size()) {
+            snippet.append(ELLIPSIS);
+        } else {
+            snippet.append(text, position, text.length());
+        }
+        return snippet.toString();
+    }
+
+    private static boolean isHit(String word, List<String> terms) {
+        String normalized = normalize(word);
+        for (String term : terms) {
+            if (normalized.startsWith(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int countWordsWithPrefix(String text, String prefix) {
+        int count = 0;
+        int from = 0;
+        while (true) {
+            int index = text.indexOf(prefix, from);
+            if (index < 0) {
+                return count;
+            }
+            if (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1))) {
+                count++;
+            }
+            from = index + 1;
+        }
+    }
+
+    private static Note copyOf(Note note) {
+        Note copy = new Note();
+        copy.id = note.id;
+        copy.title = note.title;
+        copy.content = note.content;
+        copy.date = note.date;
+        copy.tag = note.tag;
+        copy.color = note.color;
+        copy.isCompleted = note.isCompleted;
+        copy.imagePath = note.imagePath;
+        copy.reminderTime = note.reminderTime;
+        copy.notifyType = note.notifyType;
+        return copy;
+    }
+
+    private static boolean matchesAll(Note note, List<String> terms) {
+        String title = normalize(note.title);
+        String content = normalize(note.content);
+        String tag = normalize(note.tag);
+        for (String term : terms) {
+            if (!hasWordWithPrefix(title, term) && !hasWordWithPrefix(content, term)
+                    && !hasWordWithPrefix(tag, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasWordWithPrefix(String text, String prefix) {
+        int from = 0;
+        while (true) {
+            int index = text.indexOf(prefix, from);
+            if (index < 0) {
+                return false;
+            }
+            if (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1))) {
+                return true;
+            }
+            from = index + 1;
+        }
+    }
+
+    // Case and diacritic folding close to the unicode61 tokenizer
+    static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
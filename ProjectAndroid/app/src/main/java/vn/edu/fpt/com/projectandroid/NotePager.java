@@ -0,0 +1,367 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loads the browse list (no keyword) in keyset pages ordered by date, id.
+ * Pages are fetched as the RecyclerView nears either end of the loaded
+ * window, and at most MAX_PAGES are kept; pages that fall off one end are
+ * fetched again by key when the user scrolls back.
+ *
+ * All public methods must be called on the main thread.
+ */
+public class NotePager {
+    private static final String TAG = "NotePager";
+    public static final int PAGE_SIZE = 50;
+    private static final int MAX_PAGES = 5;
+    // Start loading when this many rows are left before either end of the window
+    private static final int PREFETCH_DISTANCE = 15;
+
+    public interface Listener {
+        void onWindowChanged(List<Note> notes);
+    }
+
+    private final NoteRepository repository;
+    private final Listener listener;
+    private final ArrayDeque<List<Note>> pages = new ArrayDeque<>();
+
+    private String tag;
+    private boolean active = false;
+    private boolean loading = false;
+    private boolean hasMoreBefore = false;
+    private boolean hasMoreAfter = false;
+    // A window from the database has been handed to the listener
+    private boolean published = false;
+    // Bumped on reset and cancel; page results from older generations are dropped
+    private int generation = 0;
+    private long windowWriteVersion;
+
+    public NotePager(NoteRepository repository, Listener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (!active || loading || !(rv.getLayoutManager() instanceof LinearLayoutManager)) {
+                    return;
+                }
+                LinearLayoutManager layoutManager = (LinearLayoutManager) rv.getLayoutManager();
+                if (dy > 0 && hasMoreAfter
+                        && layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNext();
+                } else if (dy < 0 && hasMoreBefore
+                        && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    loadPrevious();
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts over from the newest note for the given tag (null for every tag).
+     */
+    public void reset(String tag) {
+        this.tag = tag;
+        active = true;
+        final int pageGeneration = ++generation;
+        final long writeVersion = repository.getWriteVersion();
+        loading = true;
+        repository.execute(() -> repository.queryFirstPage(tag, PAGE_SIZE), new NoteRepository.Callback<List<Note>>() {
+            @Override
+            public void onResult(List<Note> page) {
+                if (pageGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                pages.clear();
+                // Pages in the window are never empty, so their first and last rows can serve as keys
+                if (!page.isEmpty()) {
+                    pages.addLast(page);
+                }
+                hasMoreBefore = false;
+                hasMoreAfter = page.size() == PAGE_SIZE;
+                windowWriteVersion = writeVersion;
+                publish();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (pageGeneration == generation) {
+                    loading = false;
+                }
+                Log.e(TAG, "Error loading first page: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Reloads the rows currently in the window, keeping the scroll range.
+     * Falls back to reset() when the tag changed or nothing is loaded yet.
+     */
+    public void refresh(String tag) {
+        boolean sameTag = tag == null ? this.tag == null : tag.equals(this.tag);
+        if (!active || !sameTag || pages.isEmpty()) {
+            reset(tag);
+            return;
+        }
+
+        final Note anchor = hasMoreBefore ? pages.peekFirst().get(0) : null;
+        final int limit = Math.max(loadedCount(), PAGE_SIZE);
+        final int pageGeneration = ++generation;
+        final long writeVersion = repository.getWriteVersion();
+        loading = true;
+        // id + 1 makes the exclusive "after" bound include the anchor row itself
+        repository.execute(() -> anchor == null
+                        ? repository.queryFirstPage(tag, limit)
+                        : repository.queryPageAfter(tag, anchor.date, anchor.id + 1, limit),
+                new NoteRepository.Callback<List<Note>>() {
+                    @Override
+                    public void onResult(List<Note> rows) {
+                        if (pageGeneration != generation) {
+                            return;
+                        }
+                        loading = false;
+                        pages.clear();
+                        for (int start = 0; start < rows.size(); start += PAGE_SIZE) {
+                            pages.addLast(new ArrayList<>(rows.subList(start, Math.min(start + PAGE_SIZE, rows.size()))));
+                        }
+                        hasMoreAfter = rows.size() == limit;
+                        windowWriteVersion = writeVersion;
+                        if (pages.isEmpty()) {
+                            // Everything from the anchor down is gone; start over from the top
+                            reset(tag);
+                        } else {
+                            publish();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (pageGeneration == generation) {
+                            loading = false;
+                        }
+                        Log.e(TAG, "Error refreshing window: " + e.getMessage(), e);
+                    }
+                });
+    }
+
+    /**
+     * True when the window was loaded after the last write, so showing it
+     * again needs no query.
+     */
+    public boolean isCurrent(long writeVersion) {
+        return active && windowWriteVersion == writeVersion;
+    }
+
+    /**
+     * Patches one row of the window in place after a single write, instead
+     * of reloading the whole window. note is the row as stored now, or null
+     * when it was deleted; writeVersion is the version it was read at.
+     * Returns false when the window cannot be patched, e.g. other writes
+     * happened since it was loaded; call refresh() then.
+     */
+    public boolean applyRowChange(int noteId, Note note, long writeVersion) {
+        if (!active || loading || writeVersion != windowWriteVersion + 1) {
+            return false;
+        }
+        removeRow(noteId);
+        boolean sameTag = tag == null || (note != null && tag.equals(note.tag));
+        if (note != null && sameTag) {
+            insertRow(note);
+        }
+        if (pages.isEmpty() && (hasMoreBefore || hasMoreAfter)) {
+            // The window emptied out but other rows exist; let refresh() find them
+            return false;
+        }
+        windowWriteVersion = writeVersion;
+        publish();
+        return true;
+    }
+
+    private void removeRow(int noteId) {
+        Iterator<List<Note>> pageIterator = pages.iterator();
+        while (pageIterator.hasNext()) {
+            List<Note> page = pageIterator.next();
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).id == noteId) {
+                    page.remove(i);
+                    if (page.isEmpty()) {
+                        pageIterator.remove();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    // Places the row by (date, id) newest first; rows outside the loaded range are left to paging
+    private void insertRow(Note note) {
+        boolean firstRow = true;
+        for (List<Note> page : pages) {
+            for (int i = 0; i < page.size(); i++) {
+                Note row = page.get(i);
+                if (note.date > row.date || (note.date == row.date && note.id > row.id)) {
+                    if (!(firstRow && hasMoreBefore)) {
+                        page.add(i, note);
+                    }
+                    return;
+                }
+                firstRow = false;
+            }
+        }
+        if (hasMoreAfter) {
+            return;
+        }
+        if (pages.isEmpty()) {
+            pages.addLast(new ArrayList<>());
+        }
+        pages.peekLast().add(note);
+    }
+
+    public boolean hasPublished() {
+        return published;
+    }
+
+    /**
+     * The newest rows of the unfiltered list when the window starts at the
+     * top, for NoteSnapshot; null when the window shows something else or
+     * missed a write.
+     */
+    public List<Note> headRows(int max) {
+        if (tag != null || hasMoreBefore || !published || !isCurrent(repository.getWriteVersion())) {
+            return null;
+        }
+        List<Note> rows = new ArrayList<>(max);
+        for (List<Note> page : pages) {
+            for (Note note : page) {
+                if (rows.size() == max) {
+                    return rows;
+                }
+                rows.add(note);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Stops paging; results of loads already running are dropped.
+     */
+    public void cancel() {
+        active = false;
+        loading = false;
+        generation++;
+    }
+
+    private void loadNext() {
+        if (pages.isEmpty()) {
+            return;
+        }
+        if (repository.getWriteVersion() != windowWriteVersion) {
+            // Rows changed under the window; appending would mix old and new data
+            refresh(tag);
+            return;
+        }
+        List<Note> lastPage = pages.peekLast();
+        Note last = lastPage.get(lastPage.size() - 1);
+        final String pageTag = tag;
+        final int pageGeneration = generation;
+        loading = true;
+        repository.execute(() -> repository.queryPageAfter(pageTag, last.date, last.id, PAGE_SIZE),
+                new NoteRepository.Callback<List<Note>>() {
+                    @Override
+                    public void onResult(List<Note> page) {
+                        if (pageGeneration != generation) {
+                            return;
+                        }
+                        loading = false;
+                        hasMoreAfter = page.size() == PAGE_SIZE;
+                        if (page.isEmpty()) {
+                            return;
+                        }
+                        pages.addLast(page);
+                        if (pages.size() > MAX_PAGES) {
+                            pages.removeFirst();
+                            hasMoreBefore = true;
+                        }
+                        publish();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (pageGeneration == generation) {
+                            loading = false;
+                        }
+                        Log.e(TAG, "Error loading next page: " + e.getMessage(), e);
+                    }
+                });
+    }
+
+    private void loadPrevious() {
+        if (pages.isEmpty()) {
+            return;
+        }
+        if (repository.getWriteVersion() != windowWriteVersion) {
+            refresh(tag);
+            return;
+        }
+        Note first = pages.peekFirst().get(0);
+        final String pageTag = tag;
+        final int pageGeneration = generation;
+        loading = true;
+        repository.execute(() -> repository.queryPageBefore(pageTag, first.date, first.id, PAGE_SIZE),
+                new NoteRepository.Callback<List<Note>>() {
+                    @Override
+                    public void onResult(List<Note> page) {
+                        if (pageGeneration != generation) {
+                            return;
+                        }
+                        loading = false;
+                        hasMoreBefore = page.size() == PAGE_SIZE;
+                        if (page.isEmpty()) {
+                            return;
+                        }
+                        pages.addFirst(page);
+                        if (pages.size() > MAX_PAGES) {
+                            pages.removeLast();
+                            hasMoreAfter = true;
+                        }
+                        publish();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (pageGeneration == generation) {
+                            loading = false;
+                        }
+                        Log.e(TAG, "Error loading previous page: " + e.getMessage(), e);
+                    }
+                });
+    }
+
+    private int loadedCount() {
+        int count = 0;
+        for (List<Note> page : pages) {
+            count += page.size();
+        }
+        return count;
+    }
+
+    private void publish() {
+        List<Note> window = new ArrayList<>(loadedCount());
+        for (List<Note> page : pages) {
+            window.addAll(page);
+        }
+        published = true;
+        listener.onWindowChanged(window);
+    }
+}
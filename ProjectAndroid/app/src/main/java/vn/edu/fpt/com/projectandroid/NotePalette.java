@@ -0,0 +1,56 @@
+package vn.edu.fpt.com.projectandroid;
+
+/**
+ * Color and tag codes for note rows and the ARGB values behind them. Color
+ * and tag names are mapped to small integer codes once per list (see
+ * NoteSections), and every color lives in plain arrays indexed by those codes. Plain Java, so the
+ * benchmark module compiles it as is; NoteStyles wraps it for the views.
+ */
+final class NotePalette {
+    // Color codes, in the order of R.array.colors; RED doubles as the fallback
+    static final int COLOR_RED = 0;
+    static final int COLOR_BLUE = 1;
+    static final int COLOR_GREEN = 2;
+    static final int COLOR_YELLOW = 3;
+    static final int COLOR_PURPLE = 4;
+    static final int COLOR_ORANGE = 5;
+
+    // Tag codes; OTHER covers every tag without its own style
+    static final int TAG_WORK = 0;
+    static final int TAG_PERSONAL = 1;
+    static final int TAG_IMPORTANT = 2;
+    static final int TAG_OTHER = 3;
+
+    static final int[] INDICATOR_COLORS = {
+            0xFFFF6B6B, 0xFF4ECDC4, 0xFF4CAF50, 0xFFFFC107, 0xFF9C27B0, 0xFFFF9800
+    };
+    static final int[] LIGHT_TAG_BACKGROUNDS = {0xFFE3F2FD, 0xFFF3E5F5, 0xFFFFEBEE, 0xFFF5F5F5};
+    static final int[] LIGHT_TAG_TEXT = {0xFF1976D2, 0xFF7B1FA2, 0xFFD32F2F, 0xFF757575};
+    static final int[] DARK_TAG_BACKGROUNDS = {0xFF1E3A5F, 0xFF4A2C4A, 0xFF4A2C2C, 0xFF424242};
+    static final int[] DARK_TAG_TEXT = {0xFF64B5F6, 0xFFCE93D8, 0xFFEF5350, 0xFFBDBDBD};
+
+    private NotePalette() {
+    }
+
+    static int colorCodeOf(String color) {
+        if (color == null) {
+            return COLOR_RED;
+        }
+        if (color.equalsIgnoreCase("Blue")) return COLOR_BLUE;
+        if (color.equalsIgnoreCase("Green")) return COLOR_GREEN;
+        if (color.equalsIgnoreCase("Yellow")) return COLOR_YELLOW;
+        if (color.equalsIgnoreCase("Purple")) return COLOR_PURPLE;
+        if (color.equalsIgnoreCase("Orange")) return COLOR_ORANGE;
+        return COLOR_RED;
+    }
+
+    static int tagCodeOf(String tag) {
+        if (tag == null) {
+            return TAG_OTHER;
+        }
+        if (tag.equalsIgnoreCase("Work")) return TAG_WORK;
+        if (tag.equalsIgnoreCase("Personal")) return TAG_PERSONAL;
+        if (tag.equalsIgnoreCase("Important")) return TAG_IMPORTANT;
+        return TAG_OTHER;
+    }
+}
@@ -0,0 +1,398 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs all NoteDao work on a small background pool and posts results back
+ * to the main thread, so no screen needs allowMainThreadQueries().
+ */
+public class NoteRepository {
+    private static final String TAG = "NoteRepository";
+    private static final int THREAD_COUNT = 2;
+    // Stays under SQLITE_MAX_VARIABLE_NUMBER (999 before SQLite 3.32)
+    private static final int MAX_BIND_IDS = 900;
+    // Matches read per search; only the newest ones are ranked when a keyword hits more
+    static final int MAX_SEARCH_RESULTS = 500;
+
+    // Shared by every repository instance so the number of DB threads stays bounded
+    private static final ExecutorService DB_EXECUTOR = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "note-db-" + count.getAndIncrement());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    });
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    // Bumped after every write, so cached query results can tell whether they are still current
+    private static final AtomicLong WRITE_VERSION = new AtomicLong();
+
+    private final NoteDatabase noteDatabase;
+    private final NoteDao noteDao;
+
+    public interface Callback<T> {
+        void onResult(T result);
+
+        default void onError(Exception e) {
+            Log.e(TAG, "Database error: " + e.getMessage(), e);
+        }
+    }
+
+    public NoteRepository(NoteDatabase noteDatabase) {
+        this.noteDatabase = noteDatabase;
+        this.noteDao = noteDatabase.noteDao();
+    }
+
+    /**
+     * Opens the underlying SQLite connection in the background so that the
+     * open, schema validation and any migration are paid before a screen needs them.
+     */
+    public void warmUp() {
+        execute(() -> {
+            noteDatabase.getOpenHelper().getWritableDatabase();
+            return null;
+        }, null);
+    }
+
+    public void getAllNotes(Callback<List<Note>> callback) {
+        execute(() -> {
+            long start = NoteTrace.begin(NoteTrace.DB_LIST);
+            try {
+                return noteDao.getAllNotes();
+            } finally {
+                NoteTrace.end(NoteTrace.DB_LIST, start);
+            }
+        }, callback);
+    }
+
+    /**
+     * Filters inside SQLite so only matching rows are materialized.
+     * A null tag means every tag; an empty keyword means no text filter.
+     */
+    public void filterNotes(String tag, String keyword, Callback<List<Note>> callback) {
+        execute(() -> queryNotes(tag, keyword), callback);
+    }
+
+    List<Note> queryNotes(String tag, String keyword) {
+        String ftsQuery = NoteMatcher.toFtsQuery(keyword);
+        if (ftsQuery.isEmpty()) {
+            long start = NoteTrace.begin(NoteTrace.DB_LIST);
+            try {
+                return tag == null ? noteDao.getAllNotes() : noteDao.getNotesByTag(tag);
+            } finally {
+                NoteTrace.end(NoteTrace.DB_LIST, start);
+            }
+        }
+        long start = NoteTrace.begin(NoteTrace.DB_SEARCH);
+        try {
+            List<NoteSearchResult> results = tag == null
+                    ? noteDao.searchNotes(ftsQuery, MAX_SEARCH_RESULTS)
+                    : noteDao.searchNotesByTag(tag, ftsQuery, MAX_SEARCH_RESULTS);
+            return rank(results);
+        } finally {
+            NoteTrace.end(NoteTrace.DB_SEARCH, start);
+        }
+    }
+
+    // Keyset paging, called from NotePager on the repository executor. A null tag means every tag.
+    List<Note> queryFirstPage(String tag, int limit) {
+        long start = NoteTrace.begin(NoteTrace.DB_PAGE);
+        try {
+            return tag == null ? noteDao.getFirstPage(limit) : noteDao.getFirstPageByTag(tag, limit);
+        } finally {
+            NoteTrace.end(NoteTrace.DB_PAGE, start);
+        }
+    }
+
+    List<Note> queryPageAfter(String tag, long date, int id, int limit) {
+        long start = NoteTrace.begin(NoteTrace.DB_PAGE);
+        try {
+            return tag == null
+                    ? noteDao.getPageAfter(date, id, limit)
+                    : noteDao.getPageAfterByTag(tag, date, id, limit);
+        } finally {
+            NoteTrace.end(NoteTrace.DB_PAGE, start);
+        }
+    }
+
+    List<Note> queryPageBefore(String tag, long date, int id, int limit) {
+        long start = NoteTrace.begin(NoteTrace.DB_PAGE);
+        List<Note> page;
+        try {
+            page = tag == null
+                    ? noteDao.getPageBefore(date, id, limit)
+                    : noteDao.getPageBeforeByTag(tag, date, id, limit);
+        } finally {
+            NoteTrace.end(NoteTrace.DB_PAGE, start);
+        }
+        // The query walks upwards; flip it back to list order
+        Collections.reverse(page);
+        return page;
+    }
+
+    // Used by NoteExporter on the repository executor; the caller closes the cursor
+    Cursor queryAllNotesCursor() {
+        return noteDao.getAllNotesCursor();
+    }
+
+    int countNotes() {
+        return noteDao.countNotes();
+    }
+
+    // Used by ReminderScheduler on the repository executor
+    List<Note> queryDueReminders(long after, long until) {
+        return noteDao.getDueReminders(after, until);
+    }
+
+    Note queryNextReminder(long after) {
+        return noteDao.getNextReminder(after);
+    }
+
+    Note queryNoteById(int id) {
+        return noteDao.getNoteById(id);
+    }
+
+    private static List<Note> rank(List<NoteSearchResult> results) {
+        int size = results.size();
+        int[][][] hits = new int[size][][];
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            hits[i] = results.get(i).hits();
+            ids[i] = results.get(i).note.id;
+        }
+        List<Note> ranked = new ArrayList<>(size);
+        for (int index : NoteMatcher.relevanceOrder(hits, ids)) {
+            NoteSearchResult result = results.get(index);
+            result.note.searchSnippet = result.snippet;
+            ranked.add(result.note);
+        }
+        return ranked;
+    }
+
+    public void getNoteById(int id, Callback<Note> callback) {
+        execute(() -> noteDao.getNoteById(id), callback);
+    }
+
+    public void insert(Note note, Callback<Long> callback) {
+        execute(() -> {
+            long start = NoteTrace.begin(NoteTrace.DB_WRITE);
+            long id;
+            try {
+                id = noteDao.insert(note);
+            } finally {
+                NoteTrace.end(NoteTrace.DB_WRITE, start);
+            }
+            WRITE_VERSION.incrementAndGet();
+            return id;
+        }, callback);
+    }
+
+    // Used by NoteBackup on the repository executor; one transaction per call
+    void insertAll(List<Note> notes) {
+        long start = NoteTrace.begin(NoteTrace.DB_BULK_WRITE);
+        try {
+            noteDao.insertAll(notes);
+        } finally {
+            NoteTrace.end(NoteTrace.DB_BULK_WRITE, start);
+        }
+        WRITE_VERSION.incrementAndGet();
+    }
+
+    public void update(Note note, Callback<Void> callback) {
+        execute(() -> {
+            long start = NoteTrace.begin(NoteTrace.DB_WRITE);
+            try {
+                noteDao.update(note);
+            } finally {
+                NoteTrace.end(NoteTrace.DB_WRITE, start);
+            }
+            WRITE_VERSION.incrementAndGet();
+            return null;
+        }, callback);
+    }
+
+    public void updateNoteStatus(int noteId, boolean isCompleted, Callback<Void> callback) {
+        execute(() -> {
+            long start = NoteTrace.begin(NoteTrace.DB_WRITE);
+            try {
+                noteDao.updateNoteStatus(noteId, isCompleted);
+            } finally {
+                NoteTrace.end(NoteTrace.DB_WRITE, start);
+            }
+            WRITE_VERSION.incrementAndGet();
+            return null;
+        }, callback);
+    }
+
+    // Deleting a note also deletes its image attachment, once the row is gone and no other note uses it
+    public void deleteNote(int noteId, Callback<Void> callback) {
+        execute(() -> {
+            long start = NoteTrace.begin(NoteTrace.DB_WRITE);
+            List<String> unusedImages;
+            try {
+                unusedImages = noteDatabase.runInTransaction(() -> {
+                    List<String> imagePaths = noteDao.getImagePaths(Collections.singletonList(noteId));
+                    noteDao.deleteNote(noteId);
+                    return unusedImages(imagePaths);
+                });
+            } finally {
+                NoteTrace.end(NoteTrace.DB_WRITE, start);
+            }
+            WRITE_VERSION.incrementAndGet();
+            deleteImages(unusedImages);
+            return null;
+        }, callback);
+    }
+
+    // Bulk operations for multi-select; each runs in a single transaction. Callbacks get the rows changed.
+    public void deleteNotes(List<Integer> ids, Callback<Integer> callback) {
+        execute(() -> {
+            List<String> imagePaths = new ArrayList<>();
+            List<String> unusedImages = new ArrayList<>();
+            // Nests the chunked delete so the reference check sees every chunk gone
+            int deleted = noteDatabase.runInTransaction(() -> {
+                int rows = writeInChunks(ids, chunk -> {
+                    imagePaths.addAll(noteDao.getImagePaths(chunk));
+                    return noteDao.deleteNotes(chunk);
+                });
+                unusedImages.addAll(unusedImages(imagePaths));
+                return rows;
+            });
+            deleteImages(unusedImages);
+            return deleted;
+        }, callback);
+    }
+
+    public void updateNotesStatus(List<Integer> ids, boolean isCompleted, Callback<Integer> callback) {
+        execute(() -> writeInChunks(ids, chunk -> noteDao.updateNotesStatus(chunk, isCompleted)), callback);
+    }
+
+    public void updateNotesTag(List<Integer> ids, String tag, Callback<Integer> callback) {
+        execute(() -> writeInChunks(ids, chunk -> noteDao.updateNotesTag(chunk, tag)), callback);
+    }
+
+    public void updateNotesColor(List<Integer> ids, String color, Callback<Integer> callback) {
+        execute(() -> writeInChunks(ids, chunk -> noteDao.updateNotesColor(chunk, color)), callback);
+    }
+
+    /**
+     * Loads the given notes, newest first.
+     */
+    public void getNotesByIds(List<Integer> ids, Callback<List<Note>> callback) {
+        execute(() -> {
+            List<Note> notes = new ArrayList<>(ids.size());
+            for (int start = 0; start < ids.size(); start += MAX_BIND_IDS) {
+                notes.addAll(noteDao.getNotesByIds(ids.subList(start, Math.min(start + MAX_BIND_IDS, ids.size()))));
+            }
+            Collections.sort(notes, (a, b) -> a.date != b.date
+                    ? Long.compare(b.date, a.date)
+                    : Integer.compare(b.id, a.id));
+            return notes;
+        }, callback);
+    }
+
+    /**
+     * Deletes an attachment a note stopped using, e.g. after its image was
+     * replaced, unless another note still points at it.
+     */
+    public void releaseImage(String imagePath) {
+        execute(() -> {
+            deleteImages(unusedImages(Collections.singletonList(imagePath)));
+            return null;
+        }, null);
+    }
+
+    // A restored backup keeps its image paths, so several notes can share one file
+    private List<String> unusedImages(List<String> imagePaths) {
+        List<String> candidates = new ArrayList<>(new LinkedHashSet<>(imagePaths));
+        Set<String> referenced = new HashSet<>();
+        for (int start = 0; start < candidates.size(); start += MAX_BIND_IDS) {
+            referenced.addAll(noteDao.getReferencedImagePaths(
+                    candidates.subList(start, Math.min(start + MAX_BIND_IDS, candidates.size()))));
+        }
+        candidates.removeAll(referenced);
+        return candidates;
+    }
+
+    private static void deleteImages(List<String> imagePaths) {
+        for (String imagePath : imagePaths) {
+            NoteImages.delete(imagePath);
+        }
+    }
+
+    private interface IdChunkWrite {
+        int apply(List<Integer> ids);
+    }
+
+    private int writeInChunks(List<Integer> ids, IdChunkWrite write) {
+        long traceStart = NoteTrace.begin(NoteTrace.DB_BULK_WRITE);
+        int changed;
+        try {
+            changed = noteDatabase.runInTransaction(() -> {
+                int rows = 0;
+                for (int start = 0; start < ids.size(); start += MAX_BIND_IDS) {
+                    rows += write.apply(ids.subList(start, Math.min(start + MAX_BIND_IDS, ids.size())));
+                }
+                return rows;
+            });
+        } finally {
+            NoteTrace.end(NoteTrace.DB_BULK_WRITE, traceStart);
+        }
+        WRITE_VERSION.incrementAndGet();
+        return changed;
+    }
+
+    public long getWriteVersion() {
+        return WRITE_VERSION.get();
+    }
+
+    /**
+     * Runs the task on the DB pool and delivers the outcome on the main thread.
+     * The callback may be null for fire-and-forget writes. The returned Future
+     * can be cancelled to drop the task if it has not started yet.
+     */
+    public <T> Future<?> execute(Callable<T> task, Callback<T> callback) {
+        final long submitted = NoteTrace.ENABLED ? SystemClock.elapsedRealtimeNanos() : 0;
+        return DB_EXECUTOR.submit(() -> {
+            if (NoteTrace.ENABLED) {
+                NoteTrace.record(NoteTrace.DB_QUEUE_WAIT, SystemClock.elapsedRealtimeNanos() - submitted);
+            }
+            long start = NoteTrace.begin(NoteTrace.DB_TASK);
+            try {
+                T result = task.call();
+                if (callback != null) {
+                    MAIN_HANDLER.post(() -> callback.onResult(result));
+                }
+            } catch (Exception e) {
+                if (callback != null) {
+                    MAIN_HANDLER.post(() -> callback.onError(e));
+                } else {
+                    Log.e(TAG, "Database error: " + e.getMessage(), e);
+                }
+            } finally {
+                NoteTrace.end(NoteTrace.DB_TASK, start);
+            }
+        });
+    }
+}
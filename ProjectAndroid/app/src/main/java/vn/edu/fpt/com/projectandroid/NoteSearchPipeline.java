@@ -0,0 +1,142 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
+
+/**
+ * Debounces search input from MainActivity and makes sure only the result
+ * of the latest request reaches the listener. When the keyword just grows
+ * (e.g. "mee" -> "meet"), the previous result set is narrowed in memory
+ * instead of querying the whole table again, and re-ranked and highlighted
+ * for the new keyword the same way the database search would be.
+ *
+ * All public methods must be called on the main thread.
+ */
+public class NoteSearchPipeline {
+    private static final String TAG = "NoteSearchPipeline";
+    private static final long DEBOUNCE_MS = 250;
+
+    public interface Listener {
+        void onResults(List<Note> notes);
+    }
+
+    private final NoteRepository repository;
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable pendingQuery = this::runQuery;
+
+    // Bumped for every query and on cancel; results from older generations are dropped
+    private volatile int generation = 0;
+    private Future<?> inFlight;
+
+    private String pendingTag;
+    private String pendingKeyword = "";
+
+    // Last delivered result, used as the base for narrowing
+    private String lastTag;
+    private String lastKeyword;
+    private List<Note> lastResults;
+    private long lastWriteVersion;
+
+    public NoteSearchPipeline(NoteRepository repository, Listener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    /**
+     * Queues a search that runs once the input has been quiet for DEBOUNCE_MS.
+     * A null tag means every tag.
+     */
+    public void submit(String tag, String keyword) {
+        pendingTag = tag;
+        pendingKeyword = keyword != null ? keyword : "";
+        handler.removeCallbacks(pendingQuery);
+        handler.postDelayed(pendingQuery, DEBOUNCE_MS);
+    }
+
+    /**
+     * Runs a search right away, e.g. after a chip change or when the screen resumes.
+     */
+    public void submitNow(String tag, String keyword) {
+        pendingTag = tag;
+        pendingKeyword = keyword != null ? keyword : "";
+        handler.removeCallbacks(pendingQuery);
+        runQuery();
+    }
+
+    /**
+     * True when the last delivered result was read after the last write.
+     */
+    public boolean isCurrent(long writeVersion) {
+        return lastResults != null && lastWriteVersion == writeVersion;
+    }
+
+    /**
+     * Drops any queued or running search; nothing is delivered afterwards
+     * until the next submit.
+     */
+    public void cancel() {
+        handler.removeCallbacks(pendingQuery);
+        generation++;
+        if (inFlight != null) {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+    }
+
+    private void runQuery() {
+        final int queryGeneration = ++generation;
+        if (inFlight != null) {
+            // Stale request; drop it if it has not started yet
+            inFlight.cancel(false);
+        }
+
+        final String tag = pendingTag;
+        final String keyword = pendingKeyword;
+        final long writeVersion = repository.getWriteVersion();
+        final List<Note> base = canNarrow(tag, keyword, writeVersion) ? lastResults : null;
+
+        inFlight = repository.execute(() -> {
+            if (queryGeneration != generation) {
+                return null;
+            }
+            if (base == null) {
+                return repository.queryNotes(tag, keyword);
+            }
+            // The base result already holds only this tag; its snippets and order were for the shorter keyword
+            return NoteMatcher.rank(NoteMatcher.filter(base, null, keyword), keyword);
+        }, new NoteRepository.Callback<List<Note>>() {
+            @Override
+            public void onResult(List<Note> notes) {
+                if (notes == null || queryGeneration != generation) {
+                    return;
+                }
+                inFlight = null;
+                lastTag = tag;
+                lastKeyword = keyword;
+                lastResults = notes;
+                lastWriteVersion = writeVersion;
+                listener.onResults(notes);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Search failed: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private boolean canNarrow(String tag, String keyword, long writeVersion) {
+        return lastResults != null
+                // A capped result may have left out matches of the longer keyword
+                && lastResults.size() < NoteRepository.MAX_SEARCH_RESULTS
+                && writeVersion == lastWriteVersion
+                && Objects.equals(tag, lastTag)
+                && !NoteMatcher.toFtsQuery(lastKeyword).isEmpty()
+                && NoteMatcher.normalize(keyword).startsWith(NoteMatcher.normalize(lastKeyword));
+    }
+}
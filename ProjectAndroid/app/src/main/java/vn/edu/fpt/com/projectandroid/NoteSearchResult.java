@@ -0,0 +1,46 @@
+package vn.edu.fpt.com.projectandroid;
+
+import androidx.room.Embedded;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * One row of a full-text search: the note, a highlighted snippet and the
+ * raw matchinfo('pcx') blob its relevance is computed from.
+ */
+public class NoteSearchResult {
+    // Snippet highlight markers, see NoteDao.searchNotes
+    public static final char HIGHLIGHT_START = '\u0002';
+    public static final char HIGHLIGHT_END = '\u0003';
+
+    @Embedded
+    public Note note;
+    public String snippet;
+    public byte[] matchInfo;
+
+    /**
+     * Hits of every phrase in every column of this row, as
+     * hits[phrase][column], from the matchinfo blob. NoteMatcher.scores turns
+     * the hits of a whole result into relevance.
+     */
+    public int[][] hits() {
+        if (matchInfo == null || matchInfo.length < 8) {
+            return new int[0][0];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        int[][] hits = new int[phraseCount][columnCount];
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                // 'x' holds three ints per phrase and column; the first is the hits in this row
+                int offset = 8 + 12 * (phrase * columnCount + column);
+                if (offset + 4 > matchInfo.length) {
+                    return hits;
+                }
+                hits[phrase][column] = buffer.getInt(offset);
+            }
+        }
+        return hits;
+    }
+}
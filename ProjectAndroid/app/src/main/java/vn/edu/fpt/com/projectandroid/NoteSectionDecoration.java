@@ -0,0 +1,109 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.util.TypedValue;
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Draws the date section headers of NoteAdapter: one above the first row of
+ * each section, plus a sticky copy of the current section's header pinned
+ * to the top and pushed up by the next one. Headers are drawn, not bound as
+ * rows, so adapter positions stay one per note for selection and swipe.
+ */
+public class NoteSectionDecoration extends RecyclerView.ItemDecoration {
+    private final NoteAdapter adapter;
+    private final int headerHeight;
+    private final int textStart;
+    private final Paint backgroundPaint = new Paint();
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float textBaseline;
+
+    public NoteSectionDecoration(Context context, NoteAdapter adapter) {
+        this.adapter = adapter;
+        float density = context.getResources().getDisplayMetrics().density;
+        headerHeight = Math.round(32 * density);
+        textStart = Math.round(16 * density);
+
+        // Theme colors, so the headers follow light and dark mode
+        TypedArray colors = context.obtainStyledAttributes(
+                new int[] {android.R.attr.colorBackground, android.R.attr.textColorSecondary});
+        backgroundPaint.setColor(colors.getColor(0, 0xFFFAFAFA));
+        textPaint.setColor(colors.getColor(1, 0xFF757575));
+        colors.recycle();
+
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14,
+                context.getResources().getDisplayMetrics()));
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        textBaseline = (headerHeight - metrics.ascent - metrics.descent) / 2f;
+    }
+
+    @Override
+    public void getItemOffsets(@NonNull Rect outRect, @NonNull View view, @NonNull RecyclerView parent,
+                               @NonNull RecyclerView.State state) {
+        int position = parent.getChildAdapterPosition(view);
+        if (position != RecyclerView.NO_POSITION && adapter.isSectionStart(position)) {
+            outRect.top = headerHeight;
+        }
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        int childCount = parent.getChildCount();
+        if (childCount == 0) {
+            return;
+        }
+        int left = parent.getPaddingLeft();
+        int right = parent.getWidth() - parent.getPaddingRight();
+
+        // Headers in the gap above the first row of each visible section
+        for (int i = 0; i < childCount; i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position != RecyclerView.NO_POSITION && adapter.isSectionStart(position)) {
+                int bottom = child.getTop() - getTopMargin(child) + Math.round(child.getTranslationY());
+                drawHeader(canvas, adapter.getSectionTitle(position), left, right, bottom - headerHeight);
+            }
+        }
+
+        // Sticky header for the section at the top of the list
+        View first = parent.getChildAt(0);
+        int firstPosition = parent.getChildAdapterPosition(first);
+        String title = adapter.getSectionTitle(firstPosition);
+        if (title == null) {
+            return;
+        }
+        int top = 0;
+        // The next section's header pushes the sticky one out of the way
+        for (int i = 1; i < childCount; i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position != RecyclerView.NO_POSITION && adapter.isSectionStart(position)) {
+                int nextHeaderTop = child.getTop() - getTopMargin(child) - headerHeight;
+                if (nextHeaderTop < headerHeight) {
+                    top = nextHeaderTop - headerHeight;
+                }
+                break;
+            }
+        }
+        drawHeader(canvas, title, left, right, top);
+    }
+
+    private void drawHeader(Canvas canvas, String title, int left, int right, int top) {
+        canvas.drawRect(left, top, right, top + headerHeight, backgroundPaint);
+        canvas.drawText(title, left + textStart, top + textBaseline, textPaint);
+    }
+
+    // Cards carry a layout margin; the header sits above it
+    private static int getTopMargin(View child) {
+        RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) child.getLayoutParams();
+        return params.topMargin;
+    }
+}
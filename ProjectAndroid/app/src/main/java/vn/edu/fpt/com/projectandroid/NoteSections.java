@@ -0,0 +1,203 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Date sections (Today, Yesterday, This week, then one per month), display
+ * text and NotePalette style codes for the rows of a list, computed in one
+ * pass on a background thread.
+ * The result is kept in arrays by position and never changes once built; the
+ * notes themselves are not written to, since the adapter and NotePager keep
+ * reading them on the main thread. Binding and header drawing only read
+ * these arrays and compare ints.
+ *
+ * Month boundaries are computed once per section, not per row, and the
+ * formatted text of notes already in the previous result is reused, so a
+ * pass after a single-row change only formats the changed row.
+ */
+final class NoteSections {
+    // Section keys above every month key, in display order
+    static final int KEY_TODAY = Integer.MAX_VALUE;
+    static final int KEY_YESTERDAY = Integer.MAX_VALUE - 1;
+    static final int KEY_THIS_WEEK = Integer.MAX_VALUE - 2;
+
+    static final NoteSections EMPTY = new NoteSections(new Note[0], false);
+
+    private final Note[] notes;
+    private final String[] dateTexts;
+    private final String[] reminderTexts;
+    private final int[] colorCodes;
+    private final int[] tagCodes;
+    private final int[] keys;
+    // null when the list is not grouped (search results keep their ranking)
+    private final String[] titles;
+
+    private NoteSections(Note[] notes, boolean grouped) {
+        this.notes = notes;
+        dateTexts = new String[notes.length];
+        reminderTexts = new String[notes.length];
+        colorCodes = new int[notes.length];
+        tagCodes = new int[notes.length];
+        keys = new int[notes.length];
+        titles = grouped ? new String[notes.length] : null;
+    }
+
+    /**
+     * Builds the sections for notes, in their order. When grouped every row
+     * gets a date section; otherwise no row has one. previous is the result
+     * currently shown, whose text is reused for unchanged notes.
+     */
+    static NoteSections apply(List<Note> notes, boolean grouped, long now, NoteSections previous) {
+        NoteSections sections = new NoteSections(notes.toArray(new Note[0]), grouped);
+        Map<Integer, Integer> previousPositions = new HashMap<>(previous.notes.length * 2);
+        for (int i = 0; i < previous.notes.length; i++) {
+            previousPositions.put(previous.notes[i].id, i);
+        }
+        for (int i = 0; i < sections.notes.length; i++) {
+            Note note = sections.notes[i];
+            Integer old = previousPositions.get(note.id);
+            if (old != null && previous.notes[old].date == note.date
+                    && previous.notes[old].reminderTime == note.reminderTime) {
+                sections.dateTexts[i] = previous.dateTexts[old];
+                sections.reminderTexts[i] = previous.reminderTexts[old];
+            } else {
+                sections.dateTexts[i] = DateFormatter.format(note.date);
+                sections.reminderTexts[i] = note.reminderTime > 0
+                        ? "⏰ " + DateFormatter.format(note.reminderTime) : null;
+            }
+            sections.colorCodes[i] = NotePalette.colorCodeOf(note.color);
+            sections.tagCodes[i] = NotePalette.tagCodeOf(note.tag);
+        }
+        if (grouped) {
+            sections.assignSections(now);
+        }
+        return sections;
+    }
+
+    private void assignSections(long now) {
+        Calendar calendar = Calendar.getInstance();
+        long startOfToday = startOfDay(calendar, now);
+        calendar.add(Calendar.DAY_OF_MONTH, -1);
+        long startOfYesterday = calendar.getTimeInMillis();
+        calendar.setTimeInMillis(startOfToday);
+        calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+        long startOfWeek = Math.min(calendar.getTimeInMillis(), startOfYesterday);
+        SimpleDateFormat monthFormat = new SimpleDateFormat("LLLL yyyy", Locale.getDefault());
+
+        // Month section currently being filled: [monthStart, monthEnd)
+        long monthStart = Long.MAX_VALUE;
+        long monthEnd = Long.MIN_VALUE;
+        int monthKey = 0;
+        String monthTitle = null;
+        for (int i = 0; i < notes.length; i++) {
+            long date = notes[i].date;
+            if (date >= startOfToday) {
+                keys[i] = KEY_TODAY;
+                titles[i] = "Today";
+            } else if (date >= startOfYesterday) {
+                keys[i] = KEY_YESTERDAY;
+                titles[i] = "Yesterday";
+            } else if (date >= startOfWeek) {
+                keys[i] = KEY_THIS_WEEK;
+                titles[i] = "This week";
+            } else {
+                if (date < monthStart || date >= monthEnd) {
+                    calendar.setTimeInMillis(date);
+                    monthKey = calendar.get(Calendar.YEAR) * 12 + calendar.get(Calendar.MONTH);
+                    startOfDay(calendar, date);
+                    calendar.set(Calendar.DAY_OF_MONTH, 1);
+                    monthStart = calendar.getTimeInMillis();
+                    calendar.add(Calendar.MONTH, 1);
+                    monthEnd = calendar.getTimeInMillis();
+                    monthTitle = monthFormat.format(new Date(monthStart));
+                }
+                keys[i] = monthKey;
+                titles[i] = monthTitle;
+            }
+        }
+    }
+
+    /**
+     * The same sections with one row taken out, built on the main thread
+     * without formatting anything. Headers follow from the neighbouring keys.
+     */
+    NoteSections without(int position) {
+        int size = notes.length - 1;
+        Note[] remaining = new Note[size];
+        System.arraycopy(notes, 0, remaining, 0, position);
+        System.arraycopy(notes, position + 1, remaining, position, size - position);
+        NoteSections sections = new NoteSections(remaining, titles != null);
+        copyWithout(dateTexts, sections.dateTexts, position);
+        copyWithout(reminderTexts, sections.reminderTexts, position);
+        copyWithout(colorCodes, sections.colorCodes, position);
+        copyWithout(tagCodes, sections.tagCodes, position);
+        copyWithout(keys, sections.keys, position);
+        if (titles != null) {
+            copyWithout(titles, sections.titles, position);
+        }
+        return sections;
+    }
+
+    private static void copyWithout(String[] source, String[] target, int position) {
+        System.arraycopy(source, 0, target, 0, position);
+        System.arraycopy(source, position + 1, target, position, target.length - position);
+    }
+
+    private static void copyWithout(int[] source, int[] target, int position) {
+        System.arraycopy(source, 0, target, 0, position);
+        System.arraycopy(source, position + 1, target, position, target.length - position);
+    }
+
+    // Header text of the row's section, or null when it has none
+    String title(int position) {
+        if (titles == null || position < 0 || position >= titles.length) {
+            return null;
+        }
+        return titles[position];
+    }
+
+    boolean isSectionStart(int position) {
+        if (title(position) == null) {
+            return false;
+        }
+        return position == 0 || keys[position - 1] != keys[position];
+    }
+
+    // Formatted date of the row, or null when note is not the one this result was built for
+    String dateText(int position, Note note) {
+        return covers(position, note) ? dateTexts[position] : null;
+    }
+
+    String reminderText(int position, Note note) {
+        return covers(position, note) ? reminderTexts[position] : null;
+    }
+
+    // NotePalette codes; a row this result was not built for is resolved on the spot
+    int colorCode(int position, Note note) {
+        return covers(position, note) ? colorCodes[position] : NotePalette.colorCodeOf(note.color);
+    }
+
+    int tagCode(int position, Note note) {
+        return covers(position, note) ? tagCodes[position] : NotePalette.tagCodeOf(note.tag);
+    }
+
+    private boolean covers(int position, Note note) {
+        return position >= 0 && position < notes.length && notes[position] == note;
+    }
+
+    // Leaves the calendar at local midnight of the given day
+    private static long startOfDay(Calendar calendar, long millis) {
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
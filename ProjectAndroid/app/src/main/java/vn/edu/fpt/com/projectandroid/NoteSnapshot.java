@@ -0,0 +1,103 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.Context;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The top of the unfiltered browse list as it was last shown, kept in the
+ * cache directory. MainActivity draws it on start while the first page is
+ * queried, so the first frame does not wait for the database. It is only a
+ * preview: the page from NotePager replaces it, rows matched by id.
+ *
+ * Both methods touch the disk; run them on the repository executor.
+ */
+final class NoteSnapshot {
+    private static final String FILE_NAME = "startup_snapshot.bin";
+    private static final int FORMAT_VERSION = 1;
+    // About two screens of rows
+    static final int MAX_ROWS = 20;
+    // Rows show two lines of content; writeUTF also caps a string at 64 KB
+    private static final int MAX_CONTENT_LENGTH = 300;
+    private static final int MAX_STRING_LENGTH = 1000;
+
+    private NoteSnapshot() {
+    }
+
+    static void write(Context context, List<Note> notes) throws IOException {
+        File file = new File(context.getCacheDir(), FILE_NAME);
+        File temp = new File(context.getCacheDir(), FILE_NAME + ".tmp");
+        int count = Math.min(notes.size(), MAX_ROWS);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                Note note = notes.get(i);
+                out.writeInt(note.id);
+                out.writeLong(note.date);
+                out.writeLong(note.reminderTime);
+                out.writeBoolean(note.isCompleted);
+                writeString(out, note.title, MAX_STRING_LENGTH);
+                writeString(out, note.content, MAX_CONTENT_LENGTH);
+                writeString(out, note.tag, MAX_STRING_LENGTH);
+                writeString(out, note.color, MAX_STRING_LENGTH);
+                writeString(out, note.imagePath, MAX_STRING_LENGTH);
+                writeString(out, note.notifyType, MAX_STRING_LENGTH);
+            }
+        }
+        // A reader never sees a half-written snapshot
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Returns the saved rows, or an empty list when there is no usable snapshot.
+     */
+    static List<Note> read(Context context) {
+        File file = new File(context.getCacheDir(), FILE_NAME);
+        if (!file.exists()) {
+            return Collections.emptyList();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return Collections.emptyList();
+            }
+            int count = Math.min(in.readInt(), MAX_ROWS);
+            List<Note> notes = new ArrayList<>(Math.max(count, 0));
+            for (int i = 0; i < count; i++) {
+                Note note = new Note();
+                note.id = in.readInt();
+                note.date = in.readLong();
+                note.reminderTime = in.readLong();
+                note.isCompleted = in.readBoolean();
+                note.title = in.readUTF();
+                note.content = in.readUTF();
+                note.tag = in.readUTF();
+                note.color = in.readUTF();
+                note.imagePath = in.readUTF();
+                note.notifyType = in.readUTF();
+                notes.add(note);
+            }
+            return notes;
+        } catch (IOException e) {
+            // A damaged snapshot only costs the preview
+            return Collections.emptyList();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value, int maxLength) throws IOException {
+        String text = value != null ? value : "";
+        out.writeUTF(text.length() > maxLength ? text.substring(0, maxLength) : text);
+    }
+}
@@ -0,0 +1,60 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+
+/**
+ * Precomputed colors for note rows, built from the NotePalette tables so
+ * binding a row is only lookups. One table exists per theme (light / dark)
+ * and is built on first use.
+ */
+public final class NoteStyles {
+    private static NoteStyles lightStyles;
+    private static NoteStyles darkStyles;
+
+    final int[] indicatorColors;
+    final ColorStateList[] tagBackgrounds;
+    final int[] tagTextColors;
+
+    private NoteStyles(boolean darkMode) {
+        indicatorColors = NotePalette.INDICATOR_COLORS;
+        int[] backgrounds = darkMode ? NotePalette.DARK_TAG_BACKGROUNDS : NotePalette.LIGHT_TAG_BACKGROUNDS;
+        tagBackgrounds = new ColorStateList[backgrounds.length];
+        for (int i = 0; i < backgrounds.length; i++) {
+            tagBackgrounds[i] = ColorStateList.valueOf(backgrounds[i]);
+        }
+        tagTextColors = darkMode ? NotePalette.DARK_TAG_TEXT : NotePalette.LIGHT_TAG_TEXT;
+    }
+
+    /**
+     * Returns the table for the theme the context is currently showing.
+     * Main thread only.
+     */
+    public static NoteStyles forContext(Context context) {
+        int nightMode = context.getResources().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
+        if (nightMode == Configuration.UI_MODE_NIGHT_YES) {
+            if (darkStyles == null) {
+                darkStyles = new NoteStyles(true);
+            }
+            return darkStyles;
+        }
+        if (lightStyles == null) {
+            lightStyles = new NoteStyles(false);
+        }
+        return lightStyles;
+    }
+
+    // Codes come from NotePalette.colorCodeOf / tagCodeOf
+    int indicatorColor(int colorCode) {
+        return indicatorColors[colorCode];
+    }
+
+    ColorStateList tagBackground(int tagCode) {
+        return tagBackgrounds[tagCode];
+    }
+
+    int tagTextColor(int tagCode) {
+        return tagTextColors[tagCode];
+    }
+}
@@ -0,0 +1,177 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.os.SystemClock;
+import android.os.Trace;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lightweight instrumentation: android.os.Trace sections (visible in
+ * Perfetto / systrace), in-process counters and latency histograms.
+ *
+ * Everything is behind ENABLED, a compile-time constant from BuildConfig
+ * that is false in release builds, so the method bodies compile to nothing
+ * there and call sites cost a static call at most.
+ *
+ * Usage:
+ * <pre>
+ *   long start = NoteTrace.begin(NoteTrace.DB_SEARCH);
+ *   try { ... } finally { NoteTrace.end(NoteTrace.DB_SEARCH, start); }
+ * </pre>
+ * begin and end must run on the same thread.
+ */
+public final class NoteTrace {
+    public static final boolean ENABLED = BuildConfig.TRACING;
+
+    // Section and metric names
+    public static final String MAIN_LOAD_NOTES = "main.loadNotes";
+    public static final String MAIN_APPLY_FILTERS = "main.applyFilters";
+    // From a load or filter request until the adapter has committed the new list
+    public static final String MAIN_LIST_LATENCY = "main.listLatency";
+    public static final String ADAPTER_BIND = "adapter.bind";
+    public static final String ADAPTER_CREATE = "adapter.create";
+    public static final String DB_QUEUE_WAIT = "db.queueWait";
+    public static final String DB_TASK = "db.task";
+    public static final String DB_LIST = "db.list";
+    public static final String DB_SEARCH = "db.search";
+    public static final String DB_PAGE = "db.page";
+    public static final String DB_WRITE = "db.write";
+    public static final String DB_BULK_WRITE = "db.bulkWrite";
+    public static final String EXPORT = "export";
+    public static final String EXPORT_ROWS = "export.rows";
+    // Reported by StartupTimeline, from process start (cold) or activity creation (warm)
+    public static final String STARTUP_COLD_FIRST_FRAME = "startup.cold.firstFrame";
+    public static final String STARTUP_COLD_FULLY_DRAWN = "startup.cold.fullyDrawn";
+    public static final String STARTUP_WARM_FIRST_FRAME = "startup.warm.firstFrame";
+    public static final String STARTUP_WARM_FULLY_DRAWN = "startup.warm.fullyDrawn";
+
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> COUNTERS = new ConcurrentHashMap<>();
+
+    private NoteTrace() {
+    }
+
+    /**
+     * Opens a trace section and returns the start time for end().
+     */
+    public static long begin(String name) {
+        if (!ENABLED) {
+            return 0;
+        }
+        Trace.beginSection(name);
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Closes the section opened by begin() and records its duration under name.
+     */
+    public static void end(String name, long startNanos) {
+        if (!ENABLED) {
+            return;
+        }
+        Trace.endSection();
+        record(name, SystemClock.elapsedRealtimeNanos() - startNanos);
+    }
+
+    /**
+     * Records a duration measured elsewhere, e.g. a wait across threads.
+     */
+    public static void record(String name, long durationNanos) {
+        if (!ENABLED) {
+            return;
+        }
+        Histogram histogram = HISTOGRAMS.get(name);
+        if (histogram == null) {
+            histogram = HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+        }
+        histogram.add(durationNanos);
+    }
+
+    public static void count(String name) {
+        count(name, 1);
+    }
+
+    public static void count(String name, long delta) {
+        if (!ENABLED) {
+            return;
+        }
+        AtomicLong counter = COUNTERS.get(name);
+        if (counter == null) {
+            counter = COUNTERS.computeIfAbsent(name, key -> new AtomicLong());
+        }
+        counter.addAndGet(delta);
+    }
+
+    public static void reset() {
+        HISTOGRAMS.clear();
+        COUNTERS.clear();
+    }
+
+    /**
+     * Formats every histogram and counter as a plain-text table. Percentiles
+     * are upper bounds of power-of-two buckets, so they are within 2x.
+     */
+    public static String dump() {
+        if (!ENABLED) {
+            return "Tracing is disabled in this build";
+        }
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-20s %8s %10s %10s %10s %10s %10s%n",
+                "latency (us)", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram h = entry.getValue();
+            long count = h.count.get();
+            out.append(String.format(Locale.ROOT, "%-20s %8d %10d %10d %10d %10d %10d%n",
+                    entry.getKey(), count,
+                    count == 0 ? 0 : h.totalNanos.get() / count / 1000,
+                    h.percentileMicros(0.50), h.percentileMicros(0.90), h.percentileMicros(0.99),
+                    h.maxNanos.get() / 1000));
+        }
+        out.append(String.format(Locale.ROOT, "%n%-20s %8s%n", "counter", "value"));
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-20s %8d%n", entry.getKey(), entry.getValue().get()));
+        }
+        return out.toString();
+    }
+
+    // Bucket i holds durations in [2^(i-1), 2^i) microseconds; bucket 0 is under 1 us
+    private static final class Histogram {
+        private static final int BUCKETS = 32;
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void add(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // Retry until this value is stored or a larger one wins
+            }
+        }
+
+        long percentileMicros(double percentile) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return i == 0 ? 1 : 1L << i;
+                }
+            }
+            return maxNanos.get() / 1000;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams notes in one export format: begin() once, note() per row, then
+ * end(). Plain Java with no Android dependencies, so the benchmark module
+ * compiles it as is.
+ */
+abstract class NoteWriter {
+    final Writer out;
+
+    NoteWriter(Writer out) {
+        this.out = out;
+    }
+
+    abstract void begin(String title, List<String> headerLines, int total) throws IOException;
+
+    // index is 1-based
+    abstract void note(int index, Note note) throws IOException;
+
+    abstract void end(int count) throws IOException;
+
+    static final class TextWriter extends NoteWriter {
+        TextWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin(String title, List<String> headerLines, int total) throws IOException {
+            out.write("📚 ");
+            out.write(title);
+            out.write('\n');
+            if (headerLines != null) {
+                for (String line : headerLines) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+            out.write("Total Notes: " + total + "\n\n");
+        }
+
+        @Override
+        void note(int index, Note note) throws IOException {
+            out.write("📝 " + index + ". ");
+            out.write(String.valueOf(note.title));
+            out.write("\n📄 ");
+            out.write(String.valueOf(note.content));
+            out.write("\n🏷️ ");
+            out.write(String.valueOf(note.tag));
+            out.write(" | 🎨 ");
+            out.write(String.valueOf(note.color));
+            out.write("\n📅 ");
+            out.write(DateFormatter.format(note.date));
+            out.write('\n');
+            if (note.reminderTime > 0) {
+                out.write("⏰ Reminder: ");
+                out.write(DateFormatter.format(note.reminderTime));
+                out.write('\n');
+            }
+            out.write("\n---\n\n");
+        }
+
+        @Override
+        void end(int count) throws IOException {
+            out.write("Shared from My Notes App");
+        }
+    }
+
+    static final class HtmlWriter extends NoteWriter {
+        HtmlWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin(String title, List<String> headerLines, int total) throws IOException {
+            out.write("<!DOCTYPE html><html><head><meta charset='utf-8'><title>");
+            escape(title);
+            out.write("</title><style>body{font-family:Arial,sans-serif;margin:20px;}"
+                    + ".note{border:1px solid #ddd;margin:10px 0;padding:15px;border-radius:8px;}"
+                    + ".title{font-size:18px;font-weight:bold;color:#333;}"
+                    + ".content{margin:10px 0;color:#666;white-space:pre-wrap;}"
+                    + ".meta{font-size:12px;color:#999;}"
+                    + "</style></head><body><h1>📚 ");
+            escape(title);
+            out.write("</h1>");
+            if (headerLines != null) {
+                for (String line : headerLines) {
+                    out.write("<p>");
+                    escape(line);
+                    out.write("</p>");
+                }
+            }
+            out.write("<p>Total Notes: " + total + "</p>");
+        }
+
+        @Override
+        void note(int index, Note note) throws IOException {
+            out.write("<div class='note'><div class='title'>📝 ");
+            escape(note.title);
+            out.write("</div><div class='content'>📄 ");
+            escape(note.content);
+            out.write("</div><div class='meta'>🏷️ ");
+            escape(note.tag);
+            out.write(" | 🎨 ");
+            escape(note.color);
+            out.write(" | 📅 ");
+            out.write(DateFormatter.format(note.date));
+            out.write("</div>");
+            if (note.reminderTime > 0) {
+                out.write("<div class='meta'>⏰ Reminder: ");
+                out.write(DateFormatter.format(note.reminderTime));
+                out.write("</div>");
+            }
+            out.write("</div>");
+        }
+
+        @Override
+        void end(int count) throws IOException {
+            out.write("<hr><p><em>Shared from My Notes App</em></p></body></html>");
+        }
+
+        private void escape(String text) throws IOException {
+            if (text == null) {
+                return;
+            }
+            for (int i = 0, length = text.length(); i < length; i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '<':
+                        out.write("&lt;");
+                        break;
+                    case '>':
+                        out.write("&gt;");
+                        break;
+                    case '&':
+                        out.write("&amp;");
+                        break;
+                    case '"':
+                        out.write("&quot;");
+                        break;
+                    case '\'':
+                        out.write("&#39;");
+                        break;
+                    default:
+                        out.write(c);
+                }
+            }
+        }
+    }
+
+    static final class JsonWriter extends NoteWriter {
+        JsonWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin(String title, List<String> headerLines, int total) throws IOException {
+            out.write("{\"title\":");
+            string(title);
+            if (headerLines != null && !headerLines.isEmpty()) {
+                out.write(",\"filters\":[");
+                for (int i = 0; i < headerLines.size(); i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    string(headerLines.get(i));
+                }
+                out.write(']');
+            }
+            out.write(",\"total\":" + total + ",\"notes\":[");
+        }
+
+        @Override
+        void note(int index, Note note) throws IOException {
+            if (index > 1) {
+                out.write(',');
+            }
+            out.write("\n{\"id\":" + note.id + ",\"title\":");
+            string(note.title);
+            out.write(",\"content\":");
+            string(note.content);
+            out.write(",\"tag\":");
+            string(note.tag);
+            out.write(",\"color\":");
+            string(note.color);
+            out.write(",\"date\":" + note.date);
+            out.write(",\"completed\":" + note.isCompleted);
+            out.write(",\"reminderTime\":" + note.reminderTime + "}");
+        }
+
+        @Override
+        void end(int count) throws IOException {
+            out.write("\n]}\n");
+        }
+
+        private void string(String text) throws IOException {
+            if (text == null) {
+                out.write("null");
+                return;
+            }
+            out.write('"');
+            for (int i = 0, length = text.length(); i < length; i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.write("\\\"");
+                        break;
+                    case '\\':
+                        out.write("\\\\");
+                        break;
+                    case '\n':
+                        out.write("\\n");
+                        break;
+                    case '\r':
+                        out.write("\\r");
+                        break;
+                    case '\t':
+                        out.write("\\t");
+                        break;
+                    default:
+                        if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                }
+            }
+            out.write('"');
+        }
+    }
+}
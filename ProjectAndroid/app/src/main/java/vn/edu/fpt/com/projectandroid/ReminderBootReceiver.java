@@ -0,0 +1,26 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * Alarms do not survive a reboot or an app update, and a clock or time zone
+ * change can make reminders overdue. Each of these rebuilds the schedule.
+ */
+public class ReminderBootReceiver extends BroadcastReceiver {
+    private static final String TAG = "ReminderBootReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action)
+                || Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)
+                || Intent.ACTION_TIME_CHANGED.equals(action)
+                || Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            Log.d(TAG, "Rebuilding reminder schedule after " + action);
+            ReminderScheduler.rescheduleFromReceiver(this, context, null);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+import androidx.core.app.NotificationCompat;
+import java.util.List;
+
+/**
+ * Posts the reminders delivered by one ReminderScheduler sync. A single
+ * reminder is shown on its own; several are posted as one group with a
+ * summary, and only the summary makes a sound, so a burst of reminders
+ * alerts once instead of flooding the shade.
+ */
+final class ReminderNotifier {
+    private static final String TAG = "ReminderNotifier";
+    private static final String CHANNEL_ID = "reminder_channel";
+    private static final String GROUP_KEY = "vn.edu.fpt.com.projectandroid.REMINDERS";
+    // Note ids start at 1, so 0 never collides with a child notification
+    private static final int SUMMARY_ID = 0;
+    // Lines shown in the collapsed summary; the group itself holds every child
+    private static final int MAX_SUMMARY_LINES = 5;
+
+    private static volatile boolean channelCreated = false;
+
+    private ReminderNotifier() {
+    }
+
+    static void show(Context context, List<Note> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) {
+            Log.e(TAG, "ERROR: NotificationManager is null");
+            return;
+        }
+        ensureChannel(manager);
+
+        if (due.size() == 1) {
+            Note note = due.get(0);
+            // One notification per note; a later reminder for the same note replaces it
+            manager.notify(note.id, buildReminder(context, note, wantsSound(note)).build());
+            return;
+        }
+
+        boolean sound = false;
+        NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle();
+        for (int i = 0; i < due.size(); i++) {
+            Note note = due.get(i);
+            sound |= wantsSound(note);
+            manager.notify(note.id, buildReminder(context, note, false)
+                    .setGroup(GROUP_KEY)
+                    .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+                    .build());
+            if (i < MAX_SUMMARY_LINES) {
+                inbox.addLine(note.title);
+            }
+        }
+        if (due.size() > MAX_SUMMARY_LINES) {
+            inbox.setSummaryText("+" + (due.size() - MAX_SUMMARY_LINES) + " more");
+        }
+
+        String summaryTitle = due.size() + " reminders";
+        NotificationCompat.Builder summary = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_dialog_info)
+                .setContentTitle(summaryTitle)
+                .setContentText(due.get(0).title)
+                .setStyle(inbox.setBigContentTitle(summaryTitle))
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+                .setAutoCancel(true)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                // Chỉ có âm thanh nếu có nhắc nhở kiểu Sound
+                .setDefaults(sound ? NotificationCompat.DEFAULT_SOUND : 0);
+        manager.notify(SUMMARY_ID, summary.build());
+        Log.d(TAG, "Posted " + due.size() + " grouped reminders");
+    }
+
+    private static NotificationCompat.Builder buildReminder(Context context, Note note, boolean sound) {
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_dialog_info)
+                .setContentTitle("Reminder")
+                .setContentText(note.title)
+                .setWhen(note.reminderTime)
+                .setShowWhen(true)
+                .setAutoCancel(true)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setDefaults(sound ? NotificationCompat.DEFAULT_SOUND : 0); // Không rung, không âm thanh
+    }
+
+    private static boolean wantsSound(Note note) {
+        return "Sound".equals(note.notifyType);
+    }
+
+    // createNotificationChannel is an IPC; it only needs to happen once per process
+    private static void ensureChannel(NotificationManager manager) {
+        if (channelCreated || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+        synchronized (ReminderNotifier.class) {
+            if (channelCreated) {
+                return;
+            }
+            NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                "Reminders",
+                NotificationManager.IMPORTANCE_HIGH
+            );
+            channel.setDescription("Reminder notifications");
+            channel.enableVibration(false);
+            channel.enableLights(true);
+            channel.setShowBadge(true);
+            manager.createNotificationChannel(channel);
+            channelCreated = true;
+            Log.d(TAG, "Notification channel created successfully");
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.app.AlarmManager;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.service.notification.StatusBarNotification;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps exactly one alarm registered: the one for the earliest pending
+ * reminder. When it fires, ReminderReceiver delivers every reminder that is
+ * due and the next one is armed, so the device wakes once per due time no
+ * matter how many reminders are pending.
+ *
+ * Reminders that fall within the coalescing window after the first due one
+ * are delivered with it, up to that window early, so a cluster of reminders
+ * costs one wakeup and one grouped notification (see ReminderNotifier).
+ *
+ * Reminders at or before the "delivered until" mark, the latest reminder
+ * time delivered so far, have been shown already. Anything between that
+ * mark and now is overdue (the device was off or the clock moved) and is
+ * delivered on the next sync. A reminder saved with a time at or before the
+ * mark would be skipped by that range, so editors report it through
+ * reminderChanged() and it is delivered on its own.
+ *
+ * The armed alarm names the note and reminder time it was armed for. Every
+ * write that deletes a note or moves its reminder must go through
+ * reschedule() or cancel(), so the alarm is replaced before it goes stale.
+ */
+public final class ReminderScheduler {
+    private static final String TAG = "ReminderScheduler";
+    static final String ACTION_REMINDER = "vn.edu.fpt.com.projectandroid.action.REMINDER";
+    static final String EXTRA_NOTE_ID = "note_id";
+    static final String EXTRA_REMINDER_TIME = "reminder_time";
+    private static final String PREF_NAME = "reminder_scheduler";
+    private static final String KEY_DELIVERED_UNTIL = "delivered_until";
+    private static final String KEY_COALESCE_WINDOW = "coalesce_window_ms";
+    public static final long DEFAULT_COALESCE_WINDOW_MS = 60 * 1000;
+    // The single alarm always uses this request code, so arming it replaces the previous one
+    private static final int REQUEST_CODE = 0;
+
+    private ReminderScheduler() {
+    }
+
+    /**
+     * Re-syncs the alarm with the database in the background. Call after any
+     * write that sets, moves or clears a reminder.
+     */
+    public static void reschedule(Context context) {
+        reschedule(context, 0);
+    }
+
+    private static void reschedule(Context context, int changedNoteId) {
+        Context appContext = context.getApplicationContext();
+        NoteApplication.from(appContext).getNoteRepository().execute(() -> {
+            sync(appContext, changedNoteId);
+            return null;
+        }, null);
+    }
+
+    /**
+     * For a note whose reminder was just set or moved: drops a notification
+     * still showing for the old time and re-syncs. A new time at or before
+     * the delivered mark, e.g. in the past, is delivered right away.
+     */
+    public static void reminderChanged(Context context, int noteId) {
+        cancelNotifications(context, Collections.singletonList(noteId));
+        reschedule(context, noteId);
+    }
+
+    /**
+     * For notes that were deleted or whose reminder was cleared or moved:
+     * removes their notifications still in the shade and re-arms the alarm,
+     * so it never fires for a note that no longer exists.
+     */
+    public static void cancel(Context context, Collection<Integer> noteIds) {
+        cancelNotifications(context, noteIds);
+        reschedule(context);
+    }
+
+    public static void cancel(Context context, int noteId) {
+        cancel(context, Collections.singletonList(noteId));
+    }
+
+    private static void cancelNotifications(Context context, Collection<Integer> noteIds) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null && !noteIds.isEmpty()) {
+            Set<Integer> ids = new HashSet<>(noteIds);
+            // Only notifications that are actually showing cost an IPC to cancel
+            for (StatusBarNotification notification : manager.getActiveNotifications()) {
+                if (ids.contains(notification.getId())) {
+                    manager.cancel(notification.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets how far ahead of now reminders are pulled into the current delivery.
+     * 0 delivers every reminder at its exact time.
+     */
+    public static void setCoalesceWindow(Context context, long windowMillis) {
+        context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(KEY_COALESCE_WINDOW, Math.max(0, windowMillis))
+                .apply();
+        reschedule(context);
+    }
+
+    public static long getCoalesceWindow(Context context) {
+        return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE)
+                .getLong(KEY_COALESCE_WINDOW, DEFAULT_COALESCE_WINDOW_MS);
+    }
+
+    /**
+     * Same as reschedule(), for receivers: keeps the broadcast alive with
+     * goAsync() until the sync has finished. alarmIntent is the fired reminder
+     * alarm, or null when the schedule is rebuilt for another reason.
+     */
+    static void rescheduleFromReceiver(BroadcastReceiver receiver, Context context, Intent alarmIntent) {
+        BroadcastReceiver.PendingResult pendingResult = receiver.goAsync();
+        Context appContext = context.getApplicationContext();
+        NoteRepository repository = NoteApplication.from(appContext).getNoteRepository();
+        repository.execute(() -> {
+            if (alarmIntent != null) {
+                checkAlarm(repository, alarmIntent);
+            }
+            sync(appContext, 0);
+            return null;
+        }, new NoteRepository.Callback<Void>() {
+            @Override
+            public void onResult(Void result) {
+                pendingResult.finish();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Reminder sync failed: " + e.getMessage(), e);
+                pendingResult.finish();
+            }
+        });
+    }
+
+    // Current note data always comes from the database; the extras only tell whether the alarm was stale
+    private static void checkAlarm(NoteRepository repository, Intent alarmIntent) {
+        int noteId = alarmIntent.getIntExtra(EXTRA_NOTE_ID, -1);
+        long reminderTime = alarmIntent.getLongExtra(EXTRA_REMINDER_TIME, 0);
+        Note note = noteId > 0 ? repository.queryNoteById(noteId) : null;
+        if (note == null || note.reminderTime != reminderTime) {
+            Log.w(TAG, "Stale reminder alarm for note " + noteId + "; the schedule missed a change");
+        }
+    }
+
+    /**
+     * Delivers due reminders and arms the alarm for the next one. Runs on the
+     * repository executor; synchronized because both DB threads may call it.
+     * changedNoteId names a note whose reminder was just saved, or is 0.
+     */
+    static synchronized void sync(Context context, int changedNoteId) {
+        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        long now = System.currentTimeMillis();
+        long window = getCoalesceWindow(context);
+        // First run: nothing before now is treated as pending
+        long deliveredUntil = preferences.getLong(KEY_DELIVERED_UNTIL, now);
+        if (deliveredUntil > now + window) {
+            // The clock moved backwards; the old mark would hide reminders that are pending again
+            deliveredUntil = now;
+        }
+        NoteRepository repository = NoteApplication.from(context).getNoteRepository();
+
+        List<Note> due = new ArrayList<>();
+        Note changed = changedNoteId > 0 ? repository.queryNoteById(changedNoteId) : null;
+        if (changed != null && changed.reminderTime > 0 && changed.reminderTime <= deliveredUntil) {
+            // Inside a range already delivered, so the queries below never return it
+            due.add(changed);
+        }
+        Note first = repository.queryNextReminder(deliveredUntil);
+        if (first != null && first.reminderTime <= now) {
+            // Something is due: deliver it together with everything that follows within the window
+            List<Note> pending = repository.queryDueReminders(deliveredUntil, now + window);
+            // Empty when the note was deleted or its reminder moved between the two reads;
+            // nothing is delivered then and the alarm below is armed from a fresh read
+            if (!pending.isEmpty()) {
+                due.addAll(pending);
+                // Only as far as was delivered, so a reminder saved later for a time after that is still found
+                deliveredUntil = pending.get(pending.size() - 1).reminderTime;
+            }
+        }
+        ReminderNotifier.show(context, due);
+        preferences.edit().putLong(KEY_DELIVERED_UNTIL, deliveredUntil).apply();
+
+        arm(context, repository.queryNextReminder(deliveredUntil));
+    }
+
+    private static void arm(Context context, Note next) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "AlarmManager is null");
+            return;
+        }
+
+        Intent intent = new Intent(context, ReminderReceiver.class);
+        intent.setAction(ACTION_REMINDER);
+        if (next != null) {
+            intent.putExtra(EXTRA_NOTE_ID, next.id);
+            intent.putExtra(EXTRA_REMINDER_TIME, next.reminderTime);
+        }
+        // FLAG_UPDATE_CURRENT swaps the extras of the one pending alarm in place
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, REQUEST_CODE, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        if (next == null) {
+            alarmManager.cancel(pendingIntent);
+            Log.d(TAG, "No pending reminders, alarm cancelled");
+            return;
+        }
+
+        long triggerAtMillis = next.reminderTime;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            // Exact alarm access was revoked; an inexact alarm still fires, just later
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, pendingIntent);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, pendingIntent);
+        }
+        Log.d(TAG, "Next reminder armed for note " + next.id + " at: " + DateFormatter.format(triggerAtMillis));
+    }
+}
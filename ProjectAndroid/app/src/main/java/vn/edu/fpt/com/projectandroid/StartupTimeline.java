@@ -0,0 +1,209 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timestamps the phases of an app start and reports them once the first
+ * frame is drawn and the list from the database is on screen.
+ *
+ * A cold start is the first MainActivity of a process that was started to
+ * show it, timed from process start. Any other MainActivity creation is a
+ * warm start, timed from its onCreate. Each report goes to logcat as one
+ * line naming the build, to NoteTrace, and to a short history file shown in
+ * Performance Stats, so starts of different builds can be compared.
+ *
+ * All methods must be called on the main thread.
+ */
+final class StartupTimeline {
+    private static final String TAG = "StartupTimeline";
+    private static final String HISTORY_FILE = "startup_history.txt";
+    private static final int HISTORY_LINES = 20;
+
+    // Phase names, in the order they normally happen
+    static final String APP_CREATE = "app.create";
+    static final String APP_CREATED = "app.created";
+    static final String ACTIVITY_CREATE = "activity.create";
+    static final String CONTENT_SET = "activity.content";
+    static final String ACTIVITY_RESUME = "activity.resume";
+    static final String SNAPSHOT_SHOWN = "snapshot.shown";
+    static final String FIRST_FRAME = "first.frame";
+    static final String DEFERRED_DONE = "deferred.done";
+    static final String LIST_SHOWN = "list.shown";
+
+    private static boolean activityCreated = false;
+    // "cold" or "warm" while a start is being timed, null otherwise
+    private static String kind = null;
+    private static long originMillis;
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+    private static String lastReport = null;
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Called first thing in NoteApplication.onCreate. A process started for
+     * a broadcast, e.g. a reminder alarm, is not timed as a cold start.
+     */
+    static void onApplicationCreate() {
+        ActivityManager.RunningAppProcessInfo info = new ActivityManager.RunningAppProcessInfo();
+        ActivityManager.getMyMemoryState(info);
+        if (info.importance == ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND) {
+            begin("cold", Process.getStartElapsedRealtime());
+            mark(APP_CREATE);
+        }
+    }
+
+    static void onActivityCreate() {
+        if (kind == null || activityCreated) {
+            // Either the process was already running or this is a recreation
+            begin("warm", SystemClock.elapsedRealtime());
+        }
+        activityCreated = true;
+        mark(ACTIVITY_CREATE);
+    }
+
+    // Keeps the first time of each phase; ignored when no start is being timed
+    static void mark(String phase) {
+        if (kind != null && !marks.containsKey(phase)) {
+            marks.put(phase, SystemClock.elapsedRealtime());
+        }
+    }
+
+    /**
+     * Runs action once the view has drawn its first frame, e.g. work the
+     * first frame does not need. FIRST_FRAME is marked at that draw.
+     */
+    static void runAfterFirstDraw(View view, Runnable action) {
+        view.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean drawn = false;
+
+            @Override
+            public void onDraw() {
+                if (drawn) {
+                    return;
+                }
+                drawn = true;
+                mark(FIRST_FRAME);
+                // Listeners cannot be removed while they are dispatched; this runs after the traversal
+                view.post(() -> {
+                    view.getViewTreeObserver().removeOnDrawListener(this);
+                    action.run();
+                });
+            }
+        });
+    }
+
+    /**
+     * Reports the start once both the first frame and the list are shown,
+     * and tells the system the activity is fully drawn.
+     */
+    static void reportWhenComplete(Activity activity) {
+        if (kind == null || !marks.containsKey(FIRST_FRAME) || !marks.containsKey(LIST_SHOWN)) {
+            return;
+        }
+        activity.reportFullyDrawn();
+
+        long firstFrame = marks.get(FIRST_FRAME) - originMillis;
+        long fullyDrawn = Math.max(firstFrame, marks.get(LIST_SHOWN) - originMillis);
+        List<Map.Entry<String, Long>> phases = new ArrayList<>(marks.entrySet());
+        Collections.sort(phases, (a, b) -> Long.compare(a.getValue(), b.getValue()));
+        StringBuilder line = new StringBuilder();
+        line.append(new SimpleDateFormat("MM-dd HH:mm:ss", Locale.ROOT).format(new Date()))
+                .append(' ').append(kind).append(' ').append(buildName(activity))
+                .append(" | first frame ").append(firstFrame)
+                .append(" ms, fully drawn ").append(fullyDrawn).append(" ms |");
+        for (Map.Entry<String, Long> phase : phases) {
+            line.append(' ').append(phase.getKey()).append(' ').append(phase.getValue() - originMillis);
+        }
+        lastReport = line.toString();
+        Log.i(TAG, lastReport);
+        boolean cold = "cold".equals(kind);
+        NoteTrace.record(cold ? NoteTrace.STARTUP_COLD_FIRST_FRAME : NoteTrace.STARTUP_WARM_FIRST_FRAME,
+                firstFrame * 1_000_000L);
+        NoteTrace.record(cold ? NoteTrace.STARTUP_COLD_FULLY_DRAWN : NoteTrace.STARTUP_WARM_FULLY_DRAWN,
+                fullyDrawn * 1_000_000L);
+
+        String report = lastReport;
+        Context appContext = activity.getApplicationContext();
+        NoteApplication.from(activity).getNoteRepository().execute(() -> {
+            appendHistory(appContext, report);
+            return null;
+        }, null);
+        kind = null;
+        marks.clear();
+    }
+
+    static String getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * The latest reports, oldest first. Reads a file, so call it off the main thread.
+     */
+    static List<String> readHistory(Context context) throws IOException {
+        List<String> lines = new ArrayList<>();
+        File file = new File(context.getFilesDir(), HISTORY_FILE);
+        if (!file.exists()) {
+            return lines;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static void begin(String startKind, long origin) {
+        kind = startKind;
+        originMillis = origin;
+        marks.clear();
+    }
+
+    private static void appendHistory(Context context, String report) throws IOException {
+        List<String> lines = readHistory(context);
+        lines.add(report);
+        List<String> kept = lines.subList(Math.max(0, lines.size() - HISTORY_LINES), lines.size());
+        try (Writer writer = new FileWriter(new File(context.getFilesDir(), HISTORY_FILE))) {
+            for (String line : kept) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    // Version, build type and install time, so reports from two installs of the same version differ
+    private static String buildName(Context context) {
+        String installed = "";
+        try {
+            long updated = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+            installed = ", installed " + new SimpleDateFormat("MM-dd HH:mm", Locale.ROOT).format(new Date(updated));
+        } catch (PackageManager.NameNotFoundException e) {
+            // Our own package is always there
+        }
+        return BuildConfig.VERSION_NAME + " (" + BuildConfig.VERSION_CODE + ") " + BuildConfig.BUILD_TYPE + installed;
+    }
+}
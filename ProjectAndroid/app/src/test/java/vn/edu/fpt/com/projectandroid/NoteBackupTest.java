@@ -0,0 +1,171 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.app.Application;
+import android.database.MatrixCursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips NoteBackup's binary format through write and read, and checks
+ * that damaged files fail with an IOException before any note is handed
+ * over for insertion.
+ */
+@RunWith(RobolectricTestRunner.class)
+// The plain Application keeps NoteApplication from opening its own database
+@Config(application = Application.class)
+public class NoteBackupTest {
+    private static final String[] COLUMNS = {"id", "title", "content", "date", "tag", "color",
+            "isCompleted", "imagePath", "reminderTime", "notifyType"};
+    private static final int MAGIC = 0x4E42414B;
+
+    private final List<List<Note>> chunks = new ArrayList<>();
+
+    @Test
+    public void roundTripsEveryField() throws IOException {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        cursor.addRow(new Object[]{1, "Groceries", "Milk, eggs", 1704067200000L, "Shopping", "Blue",
+                1, "/data/images/1.jpg", 1704070800000L, "Vibrate"});
+        cursor.addRow(new Object[]{2, "Tiếng Việt ⏰", "", 1704153600000L, "Personal", "Red",
+                0, null, 0L, ""});
+        cursor.addRow(new Object[]{3, "No image", "Body", 1704240000000L, "Work", "Green",
+                0, "", 0L, "Popup"});
+
+        byte[] backup = write(cursor);
+        assertEquals(3, NoteBackup.read(new ByteArrayInputStream(backup), chunks::add));
+
+        assertEquals(1, chunks.size());
+        List<Note> notes = chunks.get(0);
+        assertEquals(3, notes.size());
+
+        Note first = notes.get(0);
+        assertEquals("Groceries", first.title);
+        assertEquals("Milk, eggs", first.content);
+        assertEquals(1704067200000L, first.date);
+        assertEquals("Shopping", first.tag);
+        assertEquals("Blue", first.color);
+        assertTrue(first.isCompleted);
+        assertEquals("/data/images/1.jpg", first.imagePath);
+        assertEquals(1704070800000L, first.reminderTime);
+        assertEquals("Vibrate", first.notifyType);
+
+        // A null image path and an empty notify type come back as the entity defaults
+        Note second = notes.get(1);
+        assertEquals("Tiếng Việt ⏰", second.title);
+        assertEquals("", second.content);
+        assertFalse(second.isCompleted);
+        assertEquals("", second.imagePath);
+        assertEquals(0, second.reminderTime);
+        assertEquals("Default", second.notifyType);
+
+        Note third = notes.get(2);
+        assertEquals("", third.imagePath);
+        assertEquals("Popup", third.notifyType);
+    }
+
+    @Test
+    public void roundTripsEmptyTable() throws IOException {
+        byte[] backup = write(new MatrixCursor(COLUMNS));
+        assertEquals(0, NoteBackup.read(new ByteArrayInputStream(backup), chunks::add));
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    public void flippedPayloadByteIsRejected() throws IOException {
+        byte[] backup = write(sampleCursor());
+        int index = indexOf(backup, "Groceries".getBytes(StandardCharsets.UTF_8));
+        assertTrue(index > 0);
+        backup[index + 2] ^= 0x01;
+
+        assertThrows(IOException.class, () -> NoteBackup.read(new ByteArrayInputStream(backup), chunks::add));
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws IOException {
+        byte[] backup = write(sampleCursor());
+        for (int length : new int[]{backup.length - 1, backup.length - 8, backup.length / 2, 6}) {
+            byte[] truncated = Arrays.copyOf(backup, length);
+            assertThrows(IOException.class,
+                    () -> NoteBackup.read(new ByteArrayInputStream(truncated), chunks::add));
+        }
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    public void oversizedRecordLengthIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes);
+        // Varint for 2^35 - 1; without a bound this would be a multi-gigabyte allocation
+        out.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F});
+        out.flush();
+
+        IOException e = assertThrows(IOException.class,
+                () -> NoteBackup.read(new ByteArrayInputStream(bytes.toByteArray()), chunks::add));
+        assertTrue(e.getMessage(), e.getMessage().startsWith("Backup is corrupted"));
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    public void oversizedStringLengthIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes);
+        // A 6-byte record: date 0, reminderTime 0, flags 0, then a title claiming 1,000,000 bytes
+        out.write(new byte[]{6, 0, 0, 0, (byte) 0xC0, (byte) 0x84, 0x3D});
+        out.flush();
+
+        IOException e = assertThrows(IOException.class,
+                () -> NoteBackup.read(new ByteArrayInputStream(bytes.toByteArray()), chunks::add));
+        assertTrue(e.getMessage(), e.getMessage().startsWith("Backup is corrupted"));
+        assertTrue(chunks.isEmpty());
+    }
+
+    private static MatrixCursor sampleCursor() {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        cursor.addRow(new Object[]{1, "Groceries", "Milk, eggs", 1704067200000L, "Shopping", "Blue",
+                0, "", 0L, "Default"});
+        cursor.addRow(new Object[]{2, "Meeting", "Agenda", 1704153600000L, "Work", "Red",
+                1, "/data/images/2.jpg", 1704157200000L, "Sound"});
+        return cursor;
+    }
+
+    private static byte[] write(MatrixCursor cursor) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NoteBackup.write(cursor, out);
+        return out.toByteArray();
+    }
+
+    private static DataOutputStream header(ByteArrayOutputStream bytes) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(1);
+        out.writeShort(NoteDatabase.VERSION);
+        return out;
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,235 @@
+package vn.edu.fpt.com.projectandroid;
+
+import android.app.Application;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN on the SQL behind every NoteDao method and fails
+ * when a query reads the whole notes table, sorts through a temporary
+ * B-tree, or runs a full-text MATCH anywhere but the outer loop. The SQL is
+ * captured from Room as it executes, so the plans are for the generated
+ * statements with their real bind arguments.
+ *
+ * There is no ANALYZE step: the app never runs one, so the planner works
+ * without statistics on devices too.
+ */
+@RunWith(RobolectricTestRunner.class)
+// The plain Application keeps NoteApplication from opening its own database
+@Config(application = Application.class)
+// FTS4 with the unicode61 tokenizer needs the Android SQLite build
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class NoteDaoQueryPlanTest {
+    private static final int SEED_NOTES = 500;
+    private static final String[] TAGS = {"Work", "Personal", "Important", "Shopping"};
+    private static final long START = 1704067200000L;
+    private static final long HOUR = 60 * 60 * 1000;
+
+    // "SCAN notes" (SQLite 3.36+) or "SCAN TABLE notes"; scans that walk an index are fine
+    private static final Pattern FULL_SCAN = Pattern.compile("SCAN (TABLE )?notes( AS \\w+)?");
+    private static final Pattern PLANNED_STATEMENT = Pattern.compile("^\\s*(SELECT|UPDATE|DELETE)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern NOTES_TABLE = Pattern.compile("\\bnotes\\b");
+    private static final Pattern FTS_MATCH = Pattern.compile("\\bnotes_fts MATCH\\b");
+    // A MATCH in the inner loop runs once per outer row instead of once per query
+    private static final Pattern FTS_SCAN = Pattern.compile("SCAN (TABLE )?notes_fts VIRTUAL TABLE\\b.*");
+
+    private interface DaoCall {
+        Object run(NoteDao dao);
+    }
+
+    private static final class Statement {
+        final String sql;
+        final List<Object> bindArgs;
+
+        Statement(String sql, List<Object> bindArgs) {
+            this.sql = sql;
+            this.bindArgs = new ArrayList<>(bindArgs);
+        }
+    }
+
+    // Room may report from its own threads, e.g. invalidation tracking
+    private final List<Statement> captured = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean recording = false;
+    private NoteDatabase database;
+    private NoteDao dao;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), NoteDatabase.class)
+                .allowMainThreadQueries()
+                .setQueryCallback((sql, bindArgs) -> {
+                    if (recording) {
+                        captured.add(new Statement(sql, bindArgs));
+                    }
+                }, Runnable::run)
+                .build();
+        dao = database.noteDao();
+        seed();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void everyDaoMethodIsPlanned() {
+        TreeSet<String> declared = new TreeSet<>();
+        for (Method method : NoteDao.class.getDeclaredMethods()) {
+            declared.add(method.getName());
+        }
+        assertEquals("Add new NoteDao methods to daoCalls()", declared, new TreeSet<>(daoCalls().keySet()));
+    }
+
+    @Test
+    public void queriesUseIndexesWithoutTempSorts() {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, DaoCall> entry : daoCalls().entrySet()) {
+            captured.clear();
+            recording = true;
+            Object result = entry.getValue().run(dao);
+            recording = false;
+            if (result instanceof Cursor) {
+                ((Cursor) result).close();
+            }
+
+            int planned = 0;
+            boolean matched = false;
+            for (Statement statement : new ArrayList<>(captured)) {
+                String sql = statement.sql;
+                // Room's invalidation bookkeeping and transaction statements are not ours to plan
+                if (!PLANNED_STATEMENT.matcher(sql).find() || !NOTES_TABLE.matcher(sql).find()) {
+                    continue;
+                }
+                planned++;
+                List<String> plan = explain(sql, statement.bindArgs);
+                if (FTS_MATCH.matcher(sql).find()) {
+                    matched = true;
+                    if (plan.isEmpty() || !FTS_SCAN.matcher(plan.get(0)).matches()) {
+                        failures.add(entry.getKey() + ": full-text match is not the outer loop\n  "
+                                + sql + "\n  " + plan);
+                    }
+                }
+                for (String detail : plan) {
+                    if (FULL_SCAN.matcher(detail).matches()) {
+                        failures.add(entry.getKey() + ": full table scan\n  " + sql + "\n  " + plan);
+                    } else if (detail.startsWith("USE TEMP B-TREE")) {
+                        failures.add(entry.getKey() + ": temporary sort\n  " + sql + "\n  " + plan);
+                    }
+                }
+            }
+            if (entry.getKey().startsWith("search") && !matched) {
+                failures.add(entry.getKey() + ": no full-text match was captured");
+            }
+            if (planned == 0 && !entry.getKey().startsWith("insert")) {
+                failures.add(entry.getKey() + ": no statement was captured");
+            }
+        }
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+
+    // One call per NoteDao method, keyed by method name
+    private Map<String, DaoCall> daoCalls() {
+        List<Integer> ids = Arrays.asList(3, 7, 11, 42);
+        long middle = START + (SEED_NOTES / 2) * HOUR;
+        Map<String, DaoCall> calls = new LinkedHashMap<>();
+        calls.put("insert", d -> d.insert(newNote(SEED_NOTES + 1)));
+        calls.put("insertAll", d -> {
+            d.insertAll(Collections.singletonList(newNote(SEED_NOTES + 2)));
+            return null;
+        });
+        calls.put("update", d -> {
+            d.update(d.getNoteById(5));
+            return null;
+        });
+        calls.put("updateNoteStatus", d -> {
+            d.updateNoteStatus(5, true);
+            return null;
+        });
+        calls.put("delete", d -> {
+            d.delete(d.getNoteById(6));
+            return null;
+        });
+        calls.put("deleteNote", d -> {
+            d.deleteNote(8);
+            return null;
+        });
+        calls.put("deleteNotes", d -> d.deleteNotes(Arrays.asList(9, 10)));
+        calls.put("updateNotesStatus", d -> d.updateNotesStatus(ids, true));
+        calls.put("updateNotesTag", d -> d.updateNotesTag(ids, "Work"));
+        calls.put("updateNotesColor", d -> d.updateNotesColor(ids, "Blue"));
+        calls.put("getImagePaths", d -> d.getImagePaths(ids));
+        calls.put("getReferencedImagePaths", d -> d.getReferencedImagePaths(Arrays.asList("/a/1.jpg", "/a/2.jpg")));
+        calls.put("getNotesByIds", d -> d.getNotesByIds(ids));
+        calls.put("getAllNotes", NoteDao::getAllNotes);
+        calls.put("countNotes", NoteDao::countNotes);
+        calls.put("getAllNotesCursor", NoteDao::getAllNotesCursor);
+        calls.put("getNoteById", d -> d.getNoteById(12));
+        calls.put("getNotesByTag", d -> d.getNotesByTag("Work"));
+        calls.put("getFirstPage", d -> d.getFirstPage(50));
+        calls.put("getPageAfter", d -> d.getPageAfter(middle, 250, 50));
+        calls.put("getPageBefore", d -> d.getPageBefore(middle, 250, 50));
+        calls.put("getFirstPageByTag", d -> d.getFirstPageByTag("Work", 50));
+        calls.put("getPageAfterByTag", d -> d.getPageAfterByTag("Work", middle, 250, 50));
+        calls.put("getPageBeforeByTag", d -> d.getPageBeforeByTag("Work", middle, 250, 50));
+        calls.put("getDueReminders", d -> d.getDueReminders(middle, middle + 24 * HOUR));
+        calls.put("getNextReminder", d -> d.getNextReminder(middle));
+        calls.put("searchNotes", d -> d.searchNotes("meet*", NoteRepository.MAX_SEARCH_RESULTS));
+        calls.put("searchNotesByTag", d -> d.searchNotesByTag("Work", "meet*", NoteRepository.MAX_SEARCH_RESULTS));
+        return calls;
+    }
+
+    private List<String> explain(String sql, List<Object> bindArgs) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = database.getOpenHelper().getWritableDatabase()
+                .query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + sql, bindArgs.toArray()))) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        return plan;
+    }
+
+    private void seed() {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 1; i <= SEED_NOTES; i++) {
+            notes.add(newNote(i));
+        }
+        dao.insertAll(notes);
+    }
+
+    private static Note newNote(int i) {
+        Note note = new Note("Note " + i + (i % 5 == 0 ? " meeting" : ""), "Content for note " + i,
+                TAGS[i % TAGS.length], "Red");
+        note.date = START + i * HOUR;
+        if (i % 3 == 0) {
+            note.reminderTime = note.date + 2 * HOUR;
+        }
+        return note;
+    }
+}
@@ -0,0 +1,52 @@
+// JMH benchmarks for the note processing paths that do not touch Android APIs.
+// Run with ./gradlew :benchmark:jmh; results land in build/reports/jmh/results.json.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The benchmarked classes are compiled straight from the app sources, so the
+// numbers always describe the code that ships. Only plain Java files belong here.
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "vn/edu/fpt/com/projectandroid/Note.java",
+                "vn/edu/fpt/com/projectandroid/NoteMatcher.java",
+                "vn/edu/fpt/com/projectandroid/NotePalette.java",
+                "vn/edu/fpt/com/projectandroid/NoteWriter.java",
+                "vn/edu/fpt/com/projectandroid/DateFormatter.java"
+            )
+        }
+    }
+}
+
+// The app sources contain Vietnamese comments and emoji literals
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    // Note carries Room and androidx annotations; they are not needed at run time
+    compileOnly(libs.room.common)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    benchmarkMode = listOf("avgt")
+    timeUnit = "ms"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    // The 1M datasets need a few hundred MB each
+    jvmArgs = listOf("-Xmx3g")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+    humanOutputFile = layout.buildDirectory.file("reports/jmh/human.txt")
+}
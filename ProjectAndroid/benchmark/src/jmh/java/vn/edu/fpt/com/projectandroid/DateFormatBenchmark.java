@@ -0,0 +1,48 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Formatting every note date: DateFormatter with its per-thread
+ * SimpleDateFormat against building a new SimpleDateFormat per call.
+ */
+@State(Scope.Benchmark)
+public class DateFormatBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private long[] dates;
+
+    @Setup
+    public void setUp() {
+        List<Note> notes = NoteDataset.create(size);
+        dates = new long[size];
+        for (int i = 0; i < size; i++) {
+            dates[i] = notes.get(i).date;
+        }
+    }
+
+    @Benchmark
+    public void dateFormatter(Blackhole blackhole) {
+        for (long date : dates) {
+            blackhole.consume(DateFormatter.format(date));
+        }
+    }
+
+    @Benchmark
+    public void newSimpleDateFormatPerCall(Blackhole blackhole) {
+        for (long date : dates) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+            blackhole.consume(format.format(new Date(date)));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Export text building for the share formats, written through the same
+ * buffered UTF-8 writer NoteExporter uses but into a discarding stream, so
+ * only formatting and encoding are measured.
+ */
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private List<Note> notes;
+
+    @Setup
+    public void setUp() {
+        notes = NoteDataset.create(size);
+    }
+
+    @Benchmark
+    public long text() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream();
+        try (Writer out = newWriter(sink)) {
+            write(new NoteWriter.TextWriter(out));
+        }
+        return sink.count;
+    }
+
+    @Benchmark
+    public long html() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream();
+        try (Writer out = newWriter(sink)) {
+            write(new NoteWriter.HtmlWriter(out));
+        }
+        return sink.count;
+    }
+
+    @Benchmark
+    public long json() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream();
+        try (Writer out = newWriter(sink)) {
+            write(new NoteWriter.JsonWriter(out));
+        }
+        return sink.count;
+    }
+
+    private void write(NoteWriter writer) throws IOException {
+        writer.begin("My Notes", null, notes.size());
+        for (int i = 0; i < notes.size(); i++) {
+            writer.note(i + 1, notes.get(i));
+        }
+        writer.end(notes.size());
+    }
+
+    // Same buffer size as NoteExporter
+    private static Writer newWriter(OutputStream sink) {
+        return new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    // Keeps the byte count so the JIT cannot drop the writes
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Tag and keyword filtering as applyFilters does it when the previous
+ * result is narrowed in memory (NoteSearchPipeline).
+ */
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private List<Note> notes;
+
+    @Setup
+    public void setUp() {
+        notes = NoteDataset.create(size);
+    }
+
+    @Benchmark
+    public List<Note> tagOnly() {
+        return NoteMatcher.filter(notes, "Work", "");
+    }
+
+    @Benchmark
+    public List<Note> keyword() {
+        return NoteMatcher.filter(notes, null, "meet");
+    }
+
+    @Benchmark
+    public List<Note> diacriticKeyword() {
+        return NoteMatcher.filter(notes, null, "bao cao");
+    }
+
+    @Benchmark
+    public List<Note> tagAndKeyword() {
+        return NoteMatcher.filter(notes, "Work", "proj dead");
+    }
+}
@@ -0,0 +1,54 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic notes shaped like real ones: mixed English and
+ * Vietnamese words, the four chip tags plus free-form ones, every color,
+ * and a reminder on roughly a third of them.
+ */
+final class NoteDataset {
+    static final String[] TAGS = {"Work", "Personal", "Important", "Shopping"};
+    static final String[] COLORS = {"Red", "Blue", "Green", "Yellow", "Purple", "Orange"};
+    private static final String[] WORDS = {
+            "meeting", "project", "report", "deadline", "groceries", "call", "email", "review",
+            "budget", "travel", "doctor", "birthday", "gym", "invoice", "design", "release",
+            "họp", "dự án", "báo cáo", "mua sắm", "gọi điện", "sinh nhật", "bác sĩ", "ghi chú"
+    };
+    // 2024-01-01T00:00:00Z; dates spread over the following year
+    private static final long START = 1704067200000L;
+    private static final long YEAR = 365L * 24 * 60 * 60 * 1000;
+
+    private NoteDataset() {
+    }
+
+    static List<Note> create(int size) {
+        Random random = new Random(42);
+        List<Note> notes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Note note = new Note(words(random, 3), words(random, 20),
+                    TAGS[random.nextInt(TAGS.length)], COLORS[random.nextInt(COLORS.length)]);
+            note.id = i + 1;
+            note.date = START + (long) (random.nextDouble() * YEAR);
+            note.isCompleted = random.nextInt(4) == 0;
+            if (random.nextInt(3) == 0) {
+                note.reminderTime = note.date + random.nextInt(7 * 24) * 60L * 60 * 1000;
+            }
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
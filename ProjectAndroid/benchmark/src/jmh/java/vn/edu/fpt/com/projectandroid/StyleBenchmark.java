@@ -0,0 +1,57 @@
+package vn.edu.fpt.com.projectandroid;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Color and tag style resolution done for every bound row: codes
+ * precomputed per list, as NoteSections holds them, against resolving the
+ * names at bind time.
+ */
+@State(Scope.Benchmark)
+public class StyleBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private List<Note> notes;
+    private int[] colorCodes;
+    private int[] tagCodes;
+
+    @Setup
+    public void setUp() {
+        notes = NoteDataset.create(size);
+        colorCodes = new int[size];
+        tagCodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            colorCodes[i] = NotePalette.colorCodeOf(notes.get(i).color);
+            tagCodes[i] = NotePalette.tagCodeOf(notes.get(i).tag);
+        }
+    }
+
+    @Benchmark
+    public int cached() {
+        int hash = 0;
+        for (int i = 0; i < size; i++) {
+            hash += NotePalette.INDICATOR_COLORS[colorCodes[i]];
+            hash += NotePalette.LIGHT_TAG_BACKGROUNDS[tagCodes[i]];
+            hash += NotePalette.LIGHT_TAG_TEXT[tagCodes[i]];
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int uncached() {
+        int hash = 0;
+        for (Note note : notes) {
+            int tagCode = NotePalette.tagCodeOf(note.tag);
+            hash += NotePalette.INDICATOR_COLORS[NotePalette.colorCodeOf(note.color)];
+            hash += NotePalette.LIGHT_TAG_BACKGROUNDS[tagCode];
+            hash += NotePalette.LIGHT_TAG_TEXT[tagCode];
+        }
+        return hash;
+    }
+}